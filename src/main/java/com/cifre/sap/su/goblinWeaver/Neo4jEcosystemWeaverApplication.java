@@ -3,13 +3,25 @@ package com.cifre.sap.su.goblinWeaver;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
 import com.cifre.sap.su.goblinWeaver.utils.GraphUpdatedChecker;
 import com.cifre.sap.su.goblinWeaver.utils.OsvProceeding;
+import com.cifre.sap.su.goblinWeaver.weaver.sbom.FileListingSourceSingleton;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 @SpringBootApplication
 public class Neo4jEcosystemWeaverApplication {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		if (Arrays.asList(args).contains("exportCsrSnapshot")) {
+			GraphDatabaseSingleton.exportCsrSnapshot(); // Export the graph snapshot for the csr backend then exit
+			return;
+		}
+		if (Arrays.asList(args).contains("buildSbomFileIndex")) {
+			FileListingSourceSingleton.buildSbomFileIndex(); // Build the file index for the index SBOM file source then exit
+			return;
+		}
 		GraphDatabaseSingleton.getInstance(); // Init database connection
 		GraphUpdatedChecker.deleteAddedValuesIfUpdated(); // Check if database was updated
 		OsvProceeding.initOsvData(args); // Download CVE dataset
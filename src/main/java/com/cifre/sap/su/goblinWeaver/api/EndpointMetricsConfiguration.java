@@ -0,0 +1,40 @@
+package com.cifre.sap.su.goblinWeaver.api;
+
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Sets the endpoint of the request handled by the thread, so that Weaver and Neo4j metrics are tagged with it.
+ */
+@Configuration
+public class EndpointMetricsConfiguration implements WebMvcConfigurer, AsyncHandlerInterceptor {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object endpoint = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        RequestMetrics.setEndpoint(endpoint != null ? endpoint.toString() : request.getRequestURI());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestMetrics.clearEndpoint();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The request goes on in another thread, afterCompletion is not called on this one
+        RequestMetrics.clearEndpoint();
+    }
+}
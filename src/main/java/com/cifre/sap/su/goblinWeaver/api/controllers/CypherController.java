@@ -3,24 +3,48 @@ package com.cifre.sap.su.goblinWeaver.api.controllers;
 import com.cifre.sap.su.goblinWeaver.api.entities.CypherQuery;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
-import com.cifre.sap.su.goblinWeaver.weaver.Weaver;
+import com.cifre.sap.su.goblinWeaver.weaver.StreamingGraphWriter;
+import com.cifre.sap.su.goblinWeaver.weaver.WeavingJobManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.json.simple.JSONObject;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.concurrent.Callable;
 
 @RestController
 @Tag(name = "Cypher query")
 public class CypherController {
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    // A streamed result can last longer than the default async request timeout, -1 for no timeout
+    private static final long STREAM_REQUEST_TIMEOUT_MS = Long.getLong("streamRequestTimeoutMs", -1L);
 
     @Operation(
-            description = "Execute a cypher query to the dependency graph with added values",
+            description = "Execute a read-only cypher query to the dependency graph with added values",
             summary = "Execute a cypher query"
     )
     @PostMapping("/cypher")
     public JSONObject executeCypherQuery(@RequestBody CypherQuery queryRequest) {
         InternGraph graph = GraphDatabaseSingleton.getInstance().executeQuery(queryRequest.getQuery());
-        Weaver.weaveGraph(graph, queryRequest.getAddedValues());
-        return graph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(graph, queryRequest.getAddedValues(), queryRequest.isAsync(), queryRequest.getDeadlineMs());
+    }
+
+    @Operation(
+            description = "Execute a read-only cypher query to the dependency graph with added values, the result is streamed as NDJSON lines " +
+                    "({\"node\": ...}, {\"edge\": ...} or {\"value\": ...}) without building the whole graph in memory",
+            summary = "Execute a cypher query and stream the result"
+    )
+    @PostMapping(value = "/cypher/stream", produces = NDJSON_MEDIA_TYPE)
+    public WebAsyncTask<Void> executeCypherQueryStreaming(@RequestBody CypherQuery queryRequest, HttpServletResponse response) {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        Callable<Void> streaming = () -> {
+            try (StreamingGraphWriter writer = new StreamingGraphWriter(response.getOutputStream(), queryRequest.getAddedValues())) {
+                GraphDatabaseSingleton.getInstance().executeQueryStreaming(queryRequest.getQuery(), writer);
+            }
+            return null;
+        };
+        return new WebAsyncTask<>(STREAM_REQUEST_TIMEOUT_MS, streaming);
     }
 }
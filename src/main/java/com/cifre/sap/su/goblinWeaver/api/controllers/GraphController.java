@@ -9,7 +9,7 @@ import com.cifre.sap.su.goblinWeaver.graphEntities.edges.DependencyEdge;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ArtifactNode;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ReleaseNode;
-import com.cifre.sap.su.goblinWeaver.weaver.Weaver;
+import com.cifre.sap.su.goblinWeaver.weaver.WeavingJobManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.json.simple.JSONObject;
@@ -17,8 +17,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 @RestController
@@ -46,11 +50,16 @@ public class GraphController {
         while(!releasesToTreat.isEmpty()) {
             // Step 1: for each release, get parent lib, release, lib dependencies, lib target release:
             // (lib:a)-[versions]->(release:a1)-[:dependency]->(lib:b)-[versions]->(release:b1)
-            for(String releaseGav : new HashSet<>(releasesToTreat)) {
-                InternGraph releaseGraph = GraphDatabaseSingleton.getInstance().getReleaseWithLibAndDependencies(releaseGav);
+            // All releases of the step are queried concurrently
+            List<CompletableFuture<InternGraph>> releaseGraphs = new ArrayList<>();
+            for(String releaseGav : releasesToTreat) {
+                releaseGraphs.add(GraphDatabaseSingleton.getInstance().getReleaseWithLibAndDependenciesAsync(releaseGav).toCompletableFuture());
+                visitedReleases.add(releaseGav);
+            }
+            for(CompletableFuture<InternGraph> releaseGraphFuture : releaseGraphs) {
+                InternGraph releaseGraph = releaseGraphFuture.join();
                 releaseGraph.clearValueNodes();
                 resultGraph.mergeGraph(releaseGraph);
-                visitedReleases.add(releaseGav);
                 releasesToTreat.addAll(releaseGraph.getGraphNodes().stream().filter(ReleaseNode.class::isInstance).map(NodeObject::getId).collect(Collectors.toSet()));
                 if(expendsNewLibs){
                     librariesToExpends.addAll(releaseGraph.getGraphNodes().stream().filter(ArtifactNode.class::isInstance).map(NodeObject::getId).collect(Collectors.toSet()));
@@ -59,8 +68,9 @@ public class GraphController {
             librariesToExpends.removeAll(visitedLibrary);
             // Step 2: for each libraryToExpends, get all releases
             // (lib:a)-[versions]->(release:a1)
+            List<CompletableFuture<InternGraph>> artifactGraphs = new ArrayList<>();
             for(String libraryGa : librariesToExpends){
-                InternGraph artifactGraph;
+                CompletionStage<InternGraph> artifactGraph;
                 if(graphTraversingQuery.getFilters().contains(FilterEnum.MORE_RECENT)) {
                     Long timestamp = resultGraph.getGraphNodes().stream()
                             .filter(ReleaseNode.class::isInstance)
@@ -70,19 +80,22 @@ public class GraphController {
                             .min(Long::compare)
                             .orElse(null);
                     artifactGraph = (timestamp != null)
-                            ? GraphDatabaseSingleton.getInstance().getArtifactNewReleasesGraph(libraryGa, timestamp)
-                            : GraphDatabaseSingleton.getInstance().getArtifactReleasesGraph(libraryGa);
+                            ? GraphDatabaseSingleton.getInstance().getArtifactNewReleasesGraphAsync(libraryGa, timestamp)
+                            : GraphDatabaseSingleton.getInstance().getArtifactReleasesGraphAsync(libraryGa);
                 } else {
-                    artifactGraph = GraphDatabaseSingleton.getInstance().getArtifactReleasesGraph(libraryGa);
+                    artifactGraph = GraphDatabaseSingleton.getInstance().getArtifactReleasesGraphAsync(libraryGa);
                 }
-                resultGraph.mergeGraph(artifactGraph);
+                artifactGraphs.add(artifactGraph.toCompletableFuture());
                 visitedLibrary.add(libraryGa);
+            }
+            for(CompletableFuture<InternGraph> artifactGraphFuture : artifactGraphs) {
+                InternGraph artifactGraph = artifactGraphFuture.join();
+                resultGraph.mergeGraph(artifactGraph);
                 releasesToTreat.addAll(artifactGraph.getGraphNodes().stream().filter(ReleaseNode.class::isInstance).map(NodeObject::getId).collect(Collectors.toSet()));
             }
             releasesToTreat.removeAll(visitedReleases);
         }
-        Weaver.weaveGraph(resultGraph, graphTraversingQuery.getAddedValues());
-        return resultGraph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(resultGraph, graphTraversingQuery.getAddedValues(), graphTraversingQuery.isAsync(), graphTraversingQuery.getDeadlineMs());
     }
 
     private boolean searchAndRemoveAllKeyWord(Set<String> setString){
@@ -100,7 +113,7 @@ public class GraphController {
 
 
     @Operation(
-            description = "Get the project rooted graph",
+            description = "Get the project rooted graph. Optional maxDepth and maxNodes bound the traversal, a \"truncated\" value is returned when they are reached",
             summary = "Get the project rooted all graph from releases dependencies list"
     )
     @PostMapping("/graph/rootedGraph")
@@ -113,20 +126,46 @@ public class GraphController {
         resultGraph.mergeGraph(
                 GraphDatabaseSingleton.getInstance()
                         .getRootedGraph(
-                                releaseQueryList.getReleases().stream().map(ReleaseQueryList.Release::getGav).collect(Collectors.toSet()
-                                )
+                                releaseQueryList.getReleases().stream().map(ReleaseQueryList.Release::getGav).collect(Collectors.toSet()),
+                                releaseQueryList.getMaxDepth(),
+                                releaseQueryList.getMaxNodes()
                         )
         );
-        Weaver.weaveGraph(resultGraph, releaseQueryList.getAddedValues());
-        return resultGraph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(resultGraph, releaseQueryList.getAddedValues(), releaseQueryList.isAsync(), releaseQueryList.getDeadlineMs());
     }
 
     @Operation(
-            description = "Get the project rooted direct dependencies possibilities graph",
+            description = "Get the project rooted direct dependencies possibilities graph. With the MORE_RECENT filter, only releases at least as recent as the given ones are returned",
             summary = "Get the project rooted direct dependencies possibilities graph from releases dependencies list"
     )
     @PostMapping("/graph/directPossibilitiesRooted")
     public JSONObject getDirectPossibilitiesRootedGraph(@RequestBody ReleaseQueryList releaseQueryList) {
+        InternGraph resultGraph = new InternGraph();
+        resultGraph.addNode(new ReleaseNode("ROOT", "ROOT", 0, ""));
+        for (ReleaseQueryList.Release release : releaseQueryList.getReleases()) {
+            resultGraph.addEdge(new DependencyEdge("ROOT", release.getGa(), release.getVersion(), "compile"));
+        }
+        if (releaseQueryList.getFilters() != null && releaseQueryList.getFilters().contains(FilterEnum.MORE_RECENT)) {
+            resultGraph.mergeGraph(GraphDatabaseSingleton.getInstance().getDirectNewPossibilitiesGraph(releaseQueryList.getReleases()));
+        } else {
+            resultGraph.mergeGraph(
+                    GraphDatabaseSingleton.getInstance()
+                            .getDirectPossibilitiesGraph(
+                                    releaseQueryList.getReleases().stream().map(ReleaseQueryList.Release::getGa).collect(Collectors.toSet()
+                                    )
+                            )
+            );
+        }
+        return WeavingJobManager.getInstance().weaveGraph(resultGraph, releaseQueryList.getAddedValues(), releaseQueryList.isAsync(), releaseQueryList.getDeadlineMs());
+    }
+
+    @Operation(
+            description = "Get the project rooted all possibilities graph: every release of the direct dependencies and, recursively, of their compile dependencies. " +
+                    "Optional maxDepth, maxReleasesPerArtifact (latest releases only) and maxNodes bound the expansion, a \"truncated\" value is returned when maxDepth or maxNodes are reached",
+            summary = "Get the project rooted all possibilities graph from releases dependencies list"
+    )
+    @PostMapping("/graph/allPossibilitiesRooted")
+    public JSONObject getAllPossibilitiesRootedGraph(@RequestBody ReleaseQueryList releaseQueryList) {
         InternGraph resultGraph = new InternGraph();
         resultGraph.addNode(new ReleaseNode("ROOT", "ROOT", 0, ""));
         for (ReleaseQueryList.Release release : releaseQueryList.getReleases()) {
@@ -134,13 +173,14 @@ public class GraphController {
         }
         resultGraph.mergeGraph(
                 GraphDatabaseSingleton.getInstance()
-                        .getDirectPossibilitiesGraph(
-                                releaseQueryList.getReleases().stream().map(ReleaseQueryList.Release::getGa).collect(Collectors.toSet()
-                                )
+                        .getAllPossibilitiesGraph(
+                                releaseQueryList.getReleases().stream().map(ReleaseQueryList.Release::getGa).collect(Collectors.toSet()),
+                                releaseQueryList.getMaxDepth(),
+                                releaseQueryList.getMaxReleasesPerArtifact(),
+                                releaseQueryList.getMaxNodes()
                         )
         );
-        Weaver.weaveGraph(resultGraph, releaseQueryList.getAddedValues());
-        return resultGraph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(resultGraph, releaseQueryList.getAddedValues(), releaseQueryList.isAsync(), releaseQueryList.getDeadlineMs());
     }
 
 }
@@ -0,0 +1,92 @@
+package com.cifre.sap.su.goblinWeaver.api.controllers;
+
+import com.cifre.sap.su.goblinWeaver.weaver.WeavingJob;
+import com.cifre.sap.su.goblinWeaver.weaver.WeavingJobManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.json.simple.JSONObject;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Tag(name = "Jobs")
+public class JobController {
+    private static final long PROGRESS_INTERVAL_MS = Long.getLong("weavingJobProgressIntervalMs", 1000L);
+    private static final ScheduledExecutorService progressExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weaving-job-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Operation(
+            description = "Get the status and the progress (nodes done / total per added value) of an asynchronous weaving job",
+            summary = "Get an asynchronous job status"
+    )
+    @GetMapping("/jobs/{jobId}")
+    public JSONObject getJob(@PathVariable String jobId) {
+        return findJob(jobId).getJsonObject();
+    }
+
+    @Operation(
+            description = "Get the enriched graph of an asynchronous weaving job, the job status is returned with a 202 status while the job is running",
+            summary = "Get an asynchronous job result"
+    )
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<JSONObject> getJobResult(@PathVariable String jobId) {
+        WeavingJob job = findJob(jobId);
+        return switch (job.getStatus()) {
+            case DONE -> ResponseEntity.ok(job.getResult());
+            case FAILED -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(job.getJsonObject());
+            default -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job.getJsonObject());
+        };
+    }
+
+    @Operation(
+            description = "Stream the progress of an asynchronous weaving job as server-sent events, until the job is finished",
+            summary = "Stream an asynchronous job progress"
+    )
+    @GetMapping("/jobs/{jobId}/progress")
+    public SseEmitter streamJobProgress(@PathVariable String jobId) {
+        WeavingJob job = findJob(jobId);
+        SseEmitter emitter = new SseEmitter(0L);
+        // The task can run before being scheduled, so it cancels itself through a future
+        CompletableFuture<ScheduledFuture<?>> progressTask = new CompletableFuture<>();
+        Runnable stop = () -> progressTask.thenAccept(task -> task.cancel(false));
+        emitter.onCompletion(stop);
+        emitter.onError(error -> stop.run());
+        progressTask.complete(progressExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                boolean finished = job.isFinished();
+                emitter.send(SseEmitter.event().name("progress").data(job.getJsonObject().toJSONString()));
+                if (finished) {
+                    emitter.complete();
+                    stop.run();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone
+                stop.run();
+            }
+        }, 0, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS));
+        return emitter;
+    }
+
+    private WeavingJob findJob(String jobId) {
+        WeavingJob job = WeavingJobManager.getInstance().getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired job " + jobId);
+        }
+        return job;
+    }
+}
@@ -4,7 +4,7 @@ import com.cifre.sap.su.goblinWeaver.api.entities.ReleaseQuery;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
-import com.cifre.sap.su.goblinWeaver.weaver.Weaver;
+import com.cifre.sap.su.goblinWeaver.weaver.WeavingJobManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.json.simple.JSONObject;
@@ -24,8 +24,7 @@ public class ReleaseController {
     public JSONObject getSpecificRelease(@RequestBody ReleaseQuery releaseQuery) {
         GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
         InternGraph graph = gdb.executeQuery(gdb.getQueryDictionary().getSpecificRelease(releaseQuery.toString()));
-        Weaver.weaveGraph(graph, releaseQuery.getAddedValues());
-        return graph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(graph, releaseQuery.getAddedValues(), releaseQuery.isAsync(), releaseQuery.getDeadlineMs());
     }
 
     @Operation(
@@ -36,8 +35,7 @@ public class ReleaseController {
     public JSONObject getNewerReleases(@RequestBody ReleaseQuery releaseQuery) {
         GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
         InternGraph graph = gdb.executeQuery(gdb.getQueryDictionary().getNewerReleases(releaseQuery.toString(), releaseQuery.getGa()));
-        Weaver.weaveGraph(graph, releaseQuery.getAddedValues());
-        return graph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(graph, releaseQuery.getAddedValues(), releaseQuery.isAsync(), releaseQuery.getDeadlineMs());
     }
 
     @Operation(
@@ -48,7 +46,6 @@ public class ReleaseController {
     public JSONObject getReleaseDependent(@RequestBody ReleaseQuery releaseQuery) {
         GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
         InternGraph graph = gdb.executeQuery(gdb.getQueryDictionary().getReleaseDependent(releaseQuery.getGa(), releaseQuery.getVersion()));
-        Weaver.weaveGraph(graph, releaseQuery.getAddedValues());
-        return graph.getJsonGraph();
+        return WeavingJobManager.getInstance().weaveGraph(graph, releaseQuery.getAddedValues(), releaseQuery.isAsync(), releaseQuery.getDeadlineMs());
     }
 }
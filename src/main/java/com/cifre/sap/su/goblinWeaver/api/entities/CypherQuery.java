@@ -7,6 +7,8 @@ import java.util.Set;
 public class CypherQuery {
     private String query;
     private Set<AddedValueEnum> addedValues;
+    private boolean async;
+    private Integer deadlineMs;
     
     public String getQuery() {
         return query;
@@ -23,5 +25,21 @@ public class CypherQuery {
     public void setAddedValues(Set<AddedValueEnum> addedValues) {
         this.addedValues = addedValues;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public Integer getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public void setDeadlineMs(Integer deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
 }
 
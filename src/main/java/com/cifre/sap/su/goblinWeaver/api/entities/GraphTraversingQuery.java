@@ -10,6 +10,8 @@ public class GraphTraversingQuery {
     private Set<String> libToExpendsGa;
     private Set<FilterEnum> filters;
     private Set<AddedValueEnum> addedValues;
+    private boolean async;
+    private Integer deadlineMs;
 
     public Set<String> getStartReleasesGav() {
         return startReleasesGav;
@@ -42,5 +44,21 @@ public class GraphTraversingQuery {
     public void setAddedValues(Set<AddedValueEnum> addedValues) {
         this.addedValues = addedValues;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public Integer getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public void setDeadlineMs(Integer deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
 }
 
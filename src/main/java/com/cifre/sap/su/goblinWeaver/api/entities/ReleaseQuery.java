@@ -10,6 +10,8 @@ public class ReleaseQuery {
     private String artifactId;
     private String version;
     private Set<AddedValueEnum> addedValues;
+    private boolean async;
+    private Integer deadlineMs;
 
     public String getGroupId() {
         return groupId;
@@ -43,6 +45,22 @@ public class ReleaseQuery {
         this.addedValues = addedValues;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public Integer getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public void setDeadlineMs(Integer deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
+
     @Hidden
     public String getGa(){
         return groupId+":"+artifactId;
@@ -1,5 +1,6 @@
 package com.cifre.sap.su.goblinWeaver.api.entities;
 
+import com.cifre.sap.su.goblinWeaver.api.entities.enums.FilterEnum;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
 import io.swagger.v3.oas.annotations.Hidden;
 
@@ -7,7 +8,13 @@ import java.util.Set;
 
 public class ReleaseQueryList {
     Set<Release> releases;
+    private Set<FilterEnum> filters;
     private Set<AddedValueEnum> addedValues;
+    private boolean async;
+    private Integer deadlineMs;
+    private Integer maxDepth;
+    private Integer maxNodes;
+    private Integer maxReleasesPerArtifact;
 
     public Set<Release> getReleases() {
         return releases;
@@ -17,6 +24,14 @@ public class ReleaseQueryList {
         this.releases = releases;
     }
 
+    public Set<FilterEnum> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(Set<FilterEnum> filters) {
+        this.filters = filters;
+    }
+
     public Set<AddedValueEnum> getAddedValues() {
         return addedValues;
     }
@@ -25,6 +40,46 @@ public class ReleaseQueryList {
         this.addedValues = addedValues;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public Integer getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public void setDeadlineMs(Integer deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public Integer getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(Integer maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public Integer getMaxReleasesPerArtifact() {
+        return maxReleasesPerArtifact;
+    }
+
+    public void setMaxReleasesPerArtifact(Integer maxReleasesPerArtifact) {
+        this.maxReleasesPerArtifact = maxReleasesPerArtifact;
+    }
+
     public static class Release{
         private String groupId;
         private String artifactId;
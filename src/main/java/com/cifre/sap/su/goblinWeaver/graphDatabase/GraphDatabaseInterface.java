@@ -1,29 +1,43 @@
 package com.cifre.sap.su.goblinWeaver.graphDatabase;
 
 import com.cifre.sap.su.goblinWeaver.api.entities.ReleaseQueryList;
+import com.cifre.sap.su.goblinWeaver.graphEntities.GraphObject;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 public interface GraphDatabaseInterface {
     QueryDictionary getQueryDictionary();
     InternGraph executeQuery(String query);
+    InternGraph executeQuery(QueryObject query);
     InternGraph executeQueryWithParameters(String query, Map<String, Object> parameters);
+    List<Map<String, Object>> executeRowQuery(QueryObject query);
+    void executeQueryStreaming(String query, Consumer<GraphObject> consumer);
+    CompletionStage<InternGraph> executeQueryAsync(String query);
+    CompletionStage<InternGraph> executeQueryWithParametersAsync(String query, Map<String, Object> parameters);
     Map<String,Map<AddedValueEnum,String>> getNodeAddedValues(List<String> nodeIds, Set<AddedValueEnum> addedValues, NodeType nodeType);
     void addAddedValues(List<AddedValue<?>> computedAddedValues);
     void putOneAddedValueOnGraph(String nodeId, AddedValueEnum addedValueType, String value);
     void removeAddedValuesOnGraph(Set<AddedValueEnum> addedValuesType);
-    InternGraph getRootedGraph(Set<String> artifactIdList);
-    InternGraph getAllPossibilitiesGraph(Set<String> artifactIdList);
+    Set<String> removeReleasesAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType);
+    Set<String> removeDependentsAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType);
+    InternGraph getRootedGraph(Set<String> releaseIdList, Integer maxDepth, Integer maxNodes);
+    InternGraph getAllPossibilitiesGraph(Set<String> artifactIdList, Integer maxDepth, Integer maxReleasesPerArtifact, Integer maxNodes);
     InternGraph getDirectPossibilitiesGraph(Set<String> artifactIdList);
     InternGraph getDirectNewPossibilitiesGraph(Set<ReleaseQueryList.Release> artifactIdList);
     InternGraph getReleaseWithLibAndDependencies(String artifactId);
+    CompletionStage<InternGraph> getReleaseWithLibAndDependenciesAsync(String releaseId);
     InternGraph getArtifactReleasesGraph(String artifactId);
+    CompletionStage<InternGraph> getArtifactReleasesGraphAsync(String artifactId);
     InternGraph getArtifactSpecificReleasesGraph(String releaseId);
     InternGraph getArtifactNewReleasesGraph(String artifactId, long timestamp);
+    CompletionStage<InternGraph> getArtifactNewReleasesGraphAsync(String artifactId, long timestamp);
 }
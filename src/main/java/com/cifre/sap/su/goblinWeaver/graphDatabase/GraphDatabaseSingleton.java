@@ -1,6 +1,12 @@
 package com.cifre.sap.su.goblinWeaver.graphDatabase;
 
+import com.cifre.sap.su.goblinWeaver.graphDatabase.csr.CsrGraphDatabase;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.csr.CsrGraphSnapshot;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j.Neo4jGraphDatabase;
+import com.cifre.sap.su.goblinWeaver.utils.ConstantProperties;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class GraphDatabaseSingleton {
 
@@ -15,13 +21,38 @@ public class GraphDatabaseSingleton {
             synchronized (GraphDatabaseInterface.class) {
                 //TODO: To be changed if you want to add a new graph database
                 if (graphDatabase == null) {
-                    String uri = System.getProperty("neo4jUri");
-                    String user = System.getProperty("neo4jUser");
-                    String password = System.getProperty("neo4jPassword");
-                    graphDatabase = new Neo4jGraphDatabase(uri, user, password);
+                    Neo4jGraphDatabase neo4jGraphDatabase = createNeo4jGraphDatabase();
+                    if ("csr".equals(System.getProperty("graphBackend"))) {
+                        try {
+                            graphDatabase = new CsrGraphDatabase(CsrGraphSnapshot.load(getCsrSnapshotPath()), neo4jGraphDatabase);
+                        } catch (IOException e) {
+                            System.out.println("Fail to load graph snapshot " + getCsrSnapshotPath() + ", using Neo4j for traversals:\n" + e.getMessage());
+                            graphDatabase = neo4jGraphDatabase;
+                        }
+                    } else {
+                        graphDatabase = neo4jGraphDatabase;
+                    }
                 }
             }
         }
         return graphDatabase;
     }
+
+    /**
+     * Exports the Neo4j graph to the CSR snapshot file used by the "csr" graph backend.
+     */
+    public static void exportCsrSnapshot() throws IOException {
+        createNeo4jGraphDatabase().exportCsrSnapshot(getCsrSnapshotPath());
+    }
+
+    private static Neo4jGraphDatabase createNeo4jGraphDatabase() {
+        String uri = System.getProperty("neo4jUri");
+        String user = System.getProperty("neo4jUser");
+        String password = System.getProperty("neo4jPassword");
+        return new Neo4jGraphDatabase(uri, user, password);
+    }
+
+    private static Path getCsrSnapshotPath() {
+        return Path.of(System.getProperty("csrSnapshotPath", ConstantProperties.dataFolderPath + "/graph.csr"));
+    }
 }
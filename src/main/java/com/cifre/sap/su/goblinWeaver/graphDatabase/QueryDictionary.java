@@ -1,17 +1,24 @@
 package com.cifre.sap.su.goblinWeaver.graphDatabase;
 
+import java.util.Collection;
+import java.util.Set;
+
 public interface QueryDictionary {
-    String getSpecificArtifactQuery(String artifactId);
-    String getArtifactReleasesQuery(String artifactId);
-    String getSpecificRelease(String releaseId);
-    String getReleaseDependent(String artifactId, String releaseVersion);
-    String getNewerReleases(String releaseId, String artifactId);
-    String getReleaseFreshness(String releaseId);
-    String getReleasePopularity1Year(String artifactGa, String releaseVersion);
-    String getArtifactRhythm(String artifactId);
-    String getReleaseDirectCompileDependencies(String artifactId);
-    String getLinkedArtifactReleasesAndEdgesQuery(String artifactId);
-    String getReleaseDirectCompileDependenciesEdgeAndArtifact(String artifactId);
-    String getLastReleaseTimestamp();
-    String getDependencyGraphFromReleaseIdListParameter();
+    QueryObject getSpecificArtifactQuery(String artifactId);
+    QueryObject getArtifactReleasesQuery(String artifactId);
+    QueryObject getSpecificRelease(String releaseId);
+    QueryObject getReleaseDependent(String artifactId, String releaseVersion);
+    QueryObject getNewerReleases(String releaseId, String artifactId);
+    QueryObject getReleaseFreshness(String releaseId);
+    QueryObject getReleasesFreshness(Collection<String> releaseIds);
+    QueryObject getReleasePopularity1Year(String artifactGa, String releaseVersion);
+    QueryObject getReleasesPopularity1Year(Collection<String> releaseIds);
+    QueryObject getArtifactRhythm(String artifactId);
+    QueryObject getArtifactsRhythm(Collection<String> artifactIds);
+    QueryObject getReleaseDirectCompileDependencies(String artifactId);
+    QueryObject getReleasesDirectCompileDependencies(Collection<String> releaseIds);
+    QueryObject getLinkedArtifactReleasesAndEdgesQuery(String artifactId);
+    QueryObject getReleaseDirectCompileDependenciesEdgeAndArtifact(String artifactId);
+    QueryObject getLastReleaseTimestamp();
+    QueryObject getDependencyGraphFromReleaseIdList(Set<String> releaseIdList);
 }
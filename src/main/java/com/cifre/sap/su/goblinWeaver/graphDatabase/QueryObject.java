@@ -0,0 +1,36 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A query whose text is constant for a given name, the variable parts being passed as parameters.
+ * A constant text lets the database reuse its cached execution plan.
+ */
+public class QueryObject {
+    private final String name;
+    private final String query;
+    private final Map<String, Object> parameters;
+
+    public QueryObject(String name, String query, Map<String, Object> parameters) {
+        this.name = name;
+        this.query = query;
+        this.parameters = parameters;
+    }
+
+    public QueryObject(String name, String query) {
+        this(name, query, Collections.emptyMap());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,366 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.csr;
+
+import com.cifre.sap.su.goblinWeaver.api.entities.ReleaseQueryList;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryDictionary;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.GraphObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
+import com.cifre.sap.su.goblinWeaver.graphEntities.ValueObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.edges.DependencyEdge;
+import com.cifre.sap.su.goblinWeaver.graphEntities.edges.RelationshipArEdge;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ArtifactNode;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ReleaseNode;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Graph database serving the traversal queries from an in-memory CSR snapshot of the graph.
+ * Cypher queries, added values reads and writes are delegated to the graph database the snapshot was exported from.
+ */
+public class CsrGraphDatabase implements GraphDatabaseInterface {
+    private static final String COMPILE_SCOPE = "compile";
+    private final CsrGraphSnapshot snapshot;
+    private final GraphDatabaseInterface delegate;
+
+    public CsrGraphDatabase(CsrGraphSnapshot snapshot, GraphDatabaseInterface delegate) {
+        this.snapshot = snapshot;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public QueryDictionary getQueryDictionary() {
+        return delegate.getQueryDictionary();
+    }
+
+    @Override
+    public InternGraph executeQuery(String query) {
+        return delegate.executeQuery(query);
+    }
+
+    /**
+     * The direct compile dependencies query, used by every aggregated added value, is answered from the snapshot.
+     */
+    @Override
+    public InternGraph executeQuery(QueryObject query) {
+        if ("getReleaseDirectCompileDependencies".equals(query.getName())) {
+            InternGraph graph = new InternGraph();
+            int release = snapshot.findRelease((String) query.getParameters().get("releaseId"));
+            if (release != CsrGraphSnapshot.NOT_FOUND) {
+                for (int dependency = snapshot.getFirstDependency(release); dependency < snapshot.getEndDependency(release); dependency++) {
+                    int target = snapshot.getDependencyTargetRelease(dependency);
+                    if (target != CsrGraphSnapshot.NOT_FOUND && COMPILE_SCOPE.equals(snapshot.getDependencyScope(dependency))) {
+                        graph.addNode(releaseNode(target));
+                    }
+                }
+            }
+            return graph;
+        }
+        return delegate.executeQuery(query);
+    }
+
+    @Override
+    public InternGraph executeQueryWithParameters(String query, Map<String, Object> parameters) {
+        return delegate.executeQueryWithParameters(query, parameters);
+    }
+
+    /**
+     * The batched direct compile dependencies query of the aggregation engine is answered from the snapshot.
+     */
+    @Override
+    public List<Map<String, Object>> executeRowQuery(QueryObject query) {
+        if ("getReleasesDirectCompileDependencies".equals(query.getName())) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Object releaseId : (Collection<?>) query.getParameters().get("releaseIds")) {
+                int release = snapshot.findRelease((String) releaseId);
+                if (release == CsrGraphSnapshot.NOT_FOUND) {
+                    continue;
+                }
+                for (int dependency = snapshot.getFirstDependency(release); dependency < snapshot.getEndDependency(release); dependency++) {
+                    int target = snapshot.getDependencyTargetRelease(dependency);
+                    if (target != CsrGraphSnapshot.NOT_FOUND && COMPILE_SCOPE.equals(snapshot.getDependencyScope(dependency))) {
+                        rows.add(Map.of("releaseId", releaseId, "dependencyId", snapshot.getReleaseId(target)));
+                    }
+                }
+            }
+            return rows;
+        }
+        return delegate.executeRowQuery(query);
+    }
+
+    @Override
+    public void executeQueryStreaming(String query, Consumer<GraphObject> consumer) {
+        delegate.executeQueryStreaming(query, consumer);
+    }
+
+    @Override
+    public CompletionStage<InternGraph> executeQueryAsync(String query) {
+        return delegate.executeQueryAsync(query);
+    }
+
+    @Override
+    public CompletionStage<InternGraph> executeQueryWithParametersAsync(String query, Map<String, Object> parameters) {
+        return delegate.executeQueryWithParametersAsync(query, parameters);
+    }
+
+    @Override
+    public Map<String, Map<AddedValueEnum, String>> getNodeAddedValues(List<String> nodeIds, Set<AddedValueEnum> addedValues, NodeType nodeType) {
+        return delegate.getNodeAddedValues(nodeIds, addedValues, nodeType);
+    }
+
+    @Override
+    public void addAddedValues(List<AddedValue<?>> computedAddedValues) {
+        delegate.addAddedValues(computedAddedValues);
+    }
+
+    @Override
+    public void putOneAddedValueOnGraph(String nodeId, AddedValueEnum addedValueType, String value) {
+        delegate.putOneAddedValueOnGraph(nodeId, addedValueType, value);
+    }
+
+    @Override
+    public void removeAddedValuesOnGraph(Set<AddedValueEnum> addedValuesType) {
+        delegate.removeAddedValuesOnGraph(addedValuesType);
+    }
+
+    @Override
+    public Set<String> removeReleasesAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType) {
+        return delegate.removeReleasesAddedValue(releaseIds, addedValueType);
+    }
+
+    @Override
+    public Set<String> removeDependentsAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType) {
+        return delegate.removeDependentsAddedValue(releaseIds, addedValueType);
+    }
+
+    @Override
+    public InternGraph getRootedGraph(Set<String> releaseIdList, Integer maxDepth, Integer maxNodes) {
+        InternGraph rootedGraph = new InternGraph();
+        Set<Integer> frontier = new HashSet<>();
+        for (String releaseId : releaseIdList) {
+            int release = snapshot.findRelease(releaseId);
+            if (release != CsrGraphSnapshot.NOT_FOUND) {
+                frontier.add(release);
+            }
+        }
+        Set<Integer> visitedRelease = new HashSet<>();
+        boolean truncated = false;
+        int depth = 0;
+        while (!frontier.isEmpty()) {
+            if ((maxDepth != null && depth >= maxDepth) || (maxNodes != null && rootedGraph.getGraphNodes().size() >= maxNodes)) {
+                truncated = true;
+                break;
+            }
+            visitedRelease.addAll(frontier);
+            InternGraph levelGraph = new InternGraph();
+            Set<Integer> nextFrontier = new HashSet<>();
+            for (int release : frontier) {
+                boolean hasCompileDependency = false;
+                for (int dependency = snapshot.getFirstDependency(release); dependency < snapshot.getEndDependency(release); dependency++) {
+                    int target = snapshot.getDependencyTargetRelease(dependency);
+                    if (target != CsrGraphSnapshot.NOT_FOUND && COMPILE_SCOPE.equals(snapshot.getDependencyScope(dependency))) {
+                        hasCompileDependency = true;
+                        addDependency(levelGraph, release, dependency);
+                        addArtifactRelease(levelGraph, target);
+                        nextFrontier.add(target);
+                    }
+                }
+                if (hasCompileDependency) {
+                    addArtifactRelease(levelGraph, release);
+                }
+            }
+            // Same node budget as the Neo4j backend, only the merged releases are expanded
+            truncated |= rootedGraph.mergeGraph(levelGraph, maxNodes != null ? maxNodes : Integer.MAX_VALUE);
+            nextFrontier.removeIf(release -> !rootedGraph.getGraphNodes().contains(releaseNode(release)));
+            nextFrontier.removeAll(visitedRelease);
+            frontier = nextFrontier;
+            depth++;
+        }
+        if (truncated) {
+            rootedGraph.addValue(new ValueObject("truncated", "true"));
+        }
+        return rootedGraph;
+    }
+
+    @Override
+    public InternGraph getAllPossibilitiesGraph(Set<String> artifactIdList, Integer maxDepth, Integer maxReleasesPerArtifact, Integer maxNodes) {
+        InternGraph graphAllPossibilities = new InternGraph();
+        Set<Integer> artifactToTreat = new HashSet<>();
+        for (String artifactId : artifactIdList) {
+            int artifact = snapshot.findArtifact(artifactId);
+            if (artifact != CsrGraphSnapshot.NOT_FOUND) {
+                artifactToTreat.add(artifact);
+            }
+        }
+        Set<Integer> visitedArtifact = new HashSet<>();
+        boolean truncated = false;
+        int depth = 0;
+        while (!artifactToTreat.isEmpty()) {
+            if ((maxDepth != null && depth >= maxDepth) || (maxNodes != null && graphAllPossibilities.getGraphNodes().size() >= maxNodes)) {
+                truncated = true;
+                break;
+            }
+            visitedArtifact.addAll(artifactToTreat);
+            InternGraph levelGraph = new InternGraph();
+            Set<Integer> newArtifactToTreat = new HashSet<>();
+            for (int artifact : artifactToTreat) {
+                // Releases are sorted by timestamp, the latest ones are at the end of the range
+                int firstRelease = snapshot.getFirstRelease(artifact);
+                if (maxReleasesPerArtifact != null) {
+                    firstRelease = Math.max(firstRelease, snapshot.getEndRelease(artifact) - maxReleasesPerArtifact);
+                }
+                for (int release = firstRelease; release < snapshot.getEndRelease(artifact); release++) {
+                    boolean hasCompileDependency = false;
+                    for (int dependency = snapshot.getFirstDependency(release); dependency < snapshot.getEndDependency(release); dependency++) {
+                        if (COMPILE_SCOPE.equals(snapshot.getDependencyScope(dependency))) {
+                            hasCompileDependency = true;
+                            addDependency(levelGraph, release, dependency);
+                            newArtifactToTreat.add(snapshot.getDependencyArtifact(dependency));
+                        }
+                    }
+                    if (hasCompileDependency) {
+                        addArtifactRelease(levelGraph, release);
+                    }
+                }
+            }
+            // Same node budget as the Neo4j backend, only the merged artifacts are expanded
+            truncated |= graphAllPossibilities.mergeGraph(levelGraph, maxNodes != null ? maxNodes : Integer.MAX_VALUE);
+            newArtifactToTreat.removeIf(artifact -> !graphAllPossibilities.getGraphNodes().contains(artifactNode(artifact)));
+            newArtifactToTreat.removeAll(visitedArtifact);
+            artifactToTreat = newArtifactToTreat;
+            depth++;
+        }
+        if (truncated) {
+            graphAllPossibilities.addValue(new ValueObject("truncated", "true"));
+        }
+        return graphAllPossibilities;
+    }
+
+    @Override
+    public InternGraph getDirectPossibilitiesGraph(Set<String> artifactIdList) {
+        InternGraph resultGraph = new InternGraph();
+        for (String artifactId : artifactIdList) {
+            addArtifactReleases(resultGraph, snapshot.findArtifact(artifactId), Long.MIN_VALUE);
+        }
+        return resultGraph;
+    }
+
+    @Override
+    public InternGraph getDirectNewPossibilitiesGraph(Set<ReleaseQueryList.Release> releaseIdList) {
+        InternGraph resultGraph = new InternGraph();
+        for (ReleaseQueryList.Release releaseQuery : releaseIdList) {
+            int release = snapshot.findRelease(releaseQuery.getGav());
+            if (release != CsrGraphSnapshot.NOT_FOUND) {
+                addArtifactReleases(resultGraph, snapshot.findArtifact(releaseQuery.getGa()), snapshot.getReleaseTimestamp(release));
+            }
+        }
+        return resultGraph;
+    }
+
+    @Override
+    public InternGraph getReleaseWithLibAndDependencies(String releaseId) {
+        InternGraph resultGraph = new InternGraph();
+        int release = snapshot.findRelease(releaseId);
+        if (release != CsrGraphSnapshot.NOT_FOUND) {
+            addArtifactRelease(resultGraph, release);
+            for (int dependency = snapshot.getFirstDependency(release); dependency < snapshot.getEndDependency(release); dependency++) {
+                int target = snapshot.getDependencyTargetRelease(dependency);
+                if (target != CsrGraphSnapshot.NOT_FOUND && COMPILE_SCOPE.equals(snapshot.getDependencyScope(dependency))) {
+                    addDependency(resultGraph, release, dependency);
+                    addArtifactRelease(resultGraph, target);
+                }
+            }
+        }
+        return resultGraph;
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getReleaseWithLibAndDependenciesAsync(String releaseId) {
+        return CompletableFuture.completedFuture(getReleaseWithLibAndDependencies(releaseId));
+    }
+
+    @Override
+    public InternGraph getArtifactReleasesGraph(String artifactId) {
+        return getArtifactNewReleasesGraph(artifactId, Long.MIN_VALUE);
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getArtifactReleasesGraphAsync(String artifactId) {
+        return CompletableFuture.completedFuture(getArtifactReleasesGraph(artifactId));
+    }
+
+    @Override
+    public InternGraph getArtifactSpecificReleasesGraph(String releaseId) {
+        InternGraph resultGraph = new InternGraph();
+        int release = snapshot.findRelease(releaseId);
+        if (release != CsrGraphSnapshot.NOT_FOUND) {
+            addArtifactRelease(resultGraph, release);
+        }
+        return resultGraph;
+    }
+
+    @Override
+    public InternGraph getArtifactNewReleasesGraph(String artifactId, long timestamp) {
+        InternGraph resultGraph = new InternGraph();
+        addArtifactReleases(resultGraph, snapshot.findArtifact(artifactId), timestamp);
+        return resultGraph;
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getArtifactNewReleasesGraphAsync(String artifactId, long timestamp) {
+        return CompletableFuture.completedFuture(getArtifactNewReleasesGraph(artifactId, timestamp));
+    }
+
+    /**
+     * Adds (a)-[e:relationship_AR]->(r) for every release of the artifact released at or after the timestamp.
+     */
+    private void addArtifactReleases(InternGraph graph, int artifact, long timestamp) {
+        if (artifact == CsrGraphSnapshot.NOT_FOUND) {
+            return;
+        }
+        for (int release = snapshot.getFirstRelease(artifact); release < snapshot.getEndRelease(artifact); release++) {
+            if (snapshot.getReleaseTimestamp(release) >= timestamp) {
+                addArtifactRelease(graph, release);
+            }
+        }
+    }
+
+    /**
+     * Adds (a)-[e:relationship_AR]->(r) for the release.
+     */
+    private void addArtifactRelease(InternGraph graph, int release) {
+        int artifact = snapshot.getReleaseArtifact(release);
+        graph.addNode(artifactNode(artifact));
+        graph.addNode(releaseNode(release));
+        graph.addEdge(new RelationshipArEdge(artifactElementId(artifact), releaseElementId(release)));
+    }
+
+    private void addDependency(InternGraph graph, int release, int dependency) {
+        int artifact = snapshot.getDependencyArtifact(dependency);
+        graph.addNode(artifactNode(artifact));
+        graph.addEdge(new DependencyEdge(releaseElementId(release), artifactElementId(artifact),
+                snapshot.getDependencyTargetVersion(dependency), snapshot.getDependencyScope(dependency)));
+    }
+
+    private ArtifactNode artifactNode(int artifact) {
+        return new ArtifactNode(artifactElementId(artifact), snapshot.getArtifactId(artifact), snapshot.isArtifactFound(artifact));
+    }
+
+    private ReleaseNode releaseNode(int release) {
+        return new ReleaseNode(releaseElementId(release), snapshot.getReleaseId(release), snapshot.getReleaseTimestamp(release), snapshot.getReleaseVersion(release));
+    }
+
+    private static String artifactElementId(int artifact) {
+        return "csr:a:" + artifact;
+    }
+
+    private static String releaseElementId(int release) {
+        return "csr:r:" + release;
+    }
+}
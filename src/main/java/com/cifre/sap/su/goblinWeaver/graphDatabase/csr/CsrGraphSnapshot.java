@@ -0,0 +1,240 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.csr;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped compressed-sparse-row view of the Maven Central graph.
+ * Artifacts are int-indexed in GA byte order, releases are int-indexed and grouped by artifact (then by timestamp),
+ * so the releases of an artifact are a contiguous index range. Dependencies of a release are a contiguous range
+ * of the dependency arrays. Artifact ids and versions are interned in a single string table.
+ * <p>
+ * File layout (big endian), see {@link CsrSnapshotBuilder}:
+ * header | releaseTimestamp long[R] | artifactIdString int[A] | artifactFirstRelease int[A+1] | releaseArtifact int[R]
+ * | releaseVersionString int[R] | releaseFirstDependency int[R+1] | dependencyArtifact int[E]
+ * | dependencyVersionString int[E] | dependencyScopeString int[E] | dependencyTargetRelease int[E]
+ * | stringOffsets int[S+1] | artifactFound byte[A] | stringBytes byte[]
+ */
+public class CsrGraphSnapshot {
+    static final int MAGIC = 0x47574353; // "GWCS"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    public static final int NOT_FOUND = -1;
+
+    private final int artifactCount;
+    private final int releaseCount;
+    private final int dependencyCount;
+    private final LongBuffer releaseTimestamp;
+    private final IntBuffer artifactIdString;
+    private final IntBuffer artifactFirstRelease;
+    private final IntBuffer releaseArtifact;
+    private final IntBuffer releaseVersionString;
+    private final IntBuffer releaseFirstDependency;
+    private final IntBuffer dependencyArtifact;
+    private final IntBuffer dependencyVersionString;
+    private final IntBuffer dependencyScopeString;
+    private final IntBuffer dependencyTargetRelease;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer artifactFound;
+    private final ByteBuffer stringBytes;
+
+    private CsrGraphSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a graph snapshot file");
+        }
+        int formatVersion = header.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported graph snapshot version " + formatVersion + ", expected " + FORMAT_VERSION);
+        }
+        artifactCount = header.getInt();
+        releaseCount = header.getInt();
+        dependencyCount = header.getInt();
+        int stringCount = header.getInt();
+        long stringBytesLength = header.getLong();
+
+        long position = HEADER_SIZE;
+        releaseTimestamp = map(channel, position, 8L * releaseCount).asLongBuffer();
+        position += 8L * releaseCount;
+        artifactIdString = mapInts(channel, position, artifactCount);
+        position += 4L * artifactCount;
+        artifactFirstRelease = mapInts(channel, position, artifactCount + 1);
+        position += 4L * (artifactCount + 1);
+        releaseArtifact = mapInts(channel, position, releaseCount);
+        position += 4L * releaseCount;
+        releaseVersionString = mapInts(channel, position, releaseCount);
+        position += 4L * releaseCount;
+        releaseFirstDependency = mapInts(channel, position, releaseCount + 1);
+        position += 4L * (releaseCount + 1);
+        dependencyArtifact = mapInts(channel, position, dependencyCount);
+        position += 4L * dependencyCount;
+        dependencyVersionString = mapInts(channel, position, dependencyCount);
+        position += 4L * dependencyCount;
+        dependencyScopeString = mapInts(channel, position, dependencyCount);
+        position += 4L * dependencyCount;
+        dependencyTargetRelease = mapInts(channel, position, dependencyCount);
+        position += 4L * dependencyCount;
+        stringOffsets = mapInts(channel, position, stringCount + 1);
+        position += 4L * (stringCount + 1);
+        artifactFound = map(channel, position, artifactCount);
+        position += artifactCount;
+        stringBytes = map(channel, position, stringBytesLength);
+    }
+
+    /**
+     * Maps the snapshot file, only the header is read so opening is immediate whatever the graph size.
+     */
+    public static CsrGraphSnapshot load(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CsrGraphSnapshot snapshot = new CsrGraphSnapshot(channel);
+            System.out.println("Graph snapshot loaded: " + snapshot.artifactCount + " artifacts, " + snapshot.releaseCount + " releases, "
+                    + snapshot.dependencyCount + " dependencies in " + (System.currentTimeMillis() - start) + " ms");
+            return snapshot;
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Graph snapshot section too large to be mapped: " + size + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return map(channel, position, 4L * count).asIntBuffer();
+    }
+
+    public int getArtifactCount() {
+        return artifactCount;
+    }
+
+    public int getReleaseCount() {
+        return releaseCount;
+    }
+
+    public String getArtifactId(int artifact) {
+        return getString(artifactIdString.get(artifact));
+    }
+
+    public boolean isArtifactFound(int artifact) {
+        return artifactFound.get(artifact) != 0;
+    }
+
+    public int getFirstRelease(int artifact) {
+        return artifactFirstRelease.get(artifact);
+    }
+
+    public int getEndRelease(int artifact) {
+        return artifactFirstRelease.get(artifact + 1);
+    }
+
+    public int getReleaseArtifact(int release) {
+        return releaseArtifact.get(release);
+    }
+
+    public String getReleaseVersion(int release) {
+        return getString(releaseVersionString.get(release));
+    }
+
+    public String getReleaseId(int release) {
+        return getArtifactId(getReleaseArtifact(release)) + ":" + getReleaseVersion(release);
+    }
+
+    public long getReleaseTimestamp(int release) {
+        return releaseTimestamp.get(release);
+    }
+
+    public int getFirstDependency(int release) {
+        return releaseFirstDependency.get(release);
+    }
+
+    public int getEndDependency(int release) {
+        return releaseFirstDependency.get(release + 1);
+    }
+
+    public int getDependencyArtifact(int dependency) {
+        return dependencyArtifact.get(dependency);
+    }
+
+    public String getDependencyTargetVersion(int dependency) {
+        return getString(dependencyVersionString.get(dependency));
+    }
+
+    public String getDependencyScope(int dependency) {
+        return getString(dependencyScopeString.get(dependency));
+    }
+
+    /**
+     * @return the release matching the dependency artifact and target version, or NOT_FOUND
+     */
+    public int getDependencyTargetRelease(int dependency) {
+        return dependencyTargetRelease.get(dependency);
+    }
+
+    /**
+     * Binary search of an artifact by its groupId:artifactId.
+     */
+    public int findArtifact(String artifactId) {
+        byte[] target = artifactId.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = artifactCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(artifactIdString.get(middle), target);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds a release from its groupId:artifactId:version.
+     */
+    public int findRelease(String releaseId) {
+        int separator = releaseId.lastIndexOf(':');
+        if (separator < 0) {
+            return NOT_FOUND;
+        }
+        int artifact = findArtifact(releaseId.substring(0, separator));
+        if (artifact == NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        byte[] version = releaseId.substring(separator + 1).getBytes(StandardCharsets.UTF_8);
+        for (int release = getFirstRelease(artifact); release < getEndRelease(artifact); release++) {
+            if (compareString(releaseVersionString.get(release), version) == 0) {
+                return release;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private String getString(int index) {
+        int start = stringOffsets.get(index);
+        byte[] bytes = new byte[stringOffsets.get(index + 1) - start];
+        stringBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compareString(int index, byte[] target) {
+        int start = stringOffsets.get(index);
+        int length = stringOffsets.get(index + 1) - start;
+        int common = Math.min(length, target.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(stringBytes.get(start + i) & 0xff, target[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, target.length);
+    }
+}
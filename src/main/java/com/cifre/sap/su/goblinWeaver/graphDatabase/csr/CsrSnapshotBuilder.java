@@ -0,0 +1,249 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.csr;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Collects artifacts, releases and dependencies in any order and writes them as a versioned binary snapshot
+ * readable by {@link CsrGraphSnapshot}.
+ */
+public class CsrSnapshotBuilder {
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> artifactIndex = new HashMap<>();
+    private final List<String> artifactIds = new ArrayList<>();
+    private final IntArrayList artifactString = new IntArrayList();
+    private final BitSet artifactFound = new BitSet();
+    private final Map<String, Integer> releaseIndex = new HashMap<>();
+    private final IntArrayList releaseArtifact = new IntArrayList();
+    private final IntArrayList releaseVersion = new IntArrayList();
+    private final LongArrayList releaseTimestamp = new LongArrayList();
+    private final IntArrayList dependencySource = new IntArrayList();
+    private final IntArrayList dependencyArtifact = new IntArrayList();
+    private final IntArrayList dependencyVersion = new IntArrayList();
+    private final IntArrayList dependencyScope = new IntArrayList();
+    private long skippedDependencies = 0;
+
+    public void addArtifact(String artifactId, boolean found) {
+        int artifact = getOrAddArtifact(artifactId);
+        if (found) {
+            artifactFound.set(artifact);
+        }
+    }
+
+    public void addRelease(String artifactId, String version, long timestamp) {
+        String releaseId = artifactId + ":" + version;
+        if (releaseIndex.containsKey(releaseId)) {
+            return;
+        }
+        releaseIndex.put(releaseId, releaseArtifact.size());
+        releaseArtifact.add(getOrAddArtifact(artifactId));
+        releaseVersion.add(intern(version));
+        releaseTimestamp.add(timestamp);
+    }
+
+    public void addDependency(String releaseId, String artifactId, String targetVersion, String scope) {
+        Integer source = releaseIndex.get(releaseId);
+        if (source == null) {
+            skippedDependencies++;
+            return;
+        }
+        dependencySource.add(source);
+        dependencyArtifact.add(getOrAddArtifact(artifactId));
+        dependencyVersion.add(intern(targetVersion == null ? "" : targetVersion));
+        dependencyScope.add(intern(scope == null ? "" : scope));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file then moves it in place, so a running Weaver never maps a partial file.
+     */
+    public void write(Path path) throws IOException {
+        int artifactCount = artifactIds.size();
+        int releaseCount = releaseArtifact.size();
+        int dependencyCount = dependencySource.size();
+
+        // Artifacts in GA byte order, for binary search
+        byte[][] artifactBytes = new byte[artifactCount][];
+        for (int i = 0; i < artifactCount; i++) {
+            artifactBytes[i] = artifactIds.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        Integer[] artifactOrder = new Integer[artifactCount];
+        for (int i = 0; i < artifactCount; i++) {
+            artifactOrder[i] = i;
+        }
+        Arrays.sort(artifactOrder, (a, b) -> Arrays.compareUnsigned(artifactBytes[a], artifactBytes[b]));
+        int[] newArtifact = new int[artifactCount];
+        for (int i = 0; i < artifactCount; i++) {
+            newArtifact[artifactOrder[i]] = i;
+        }
+
+        // Releases grouped by artifact, then by timestamp
+        int[] artifactFirstRelease = new int[artifactCount + 1];
+        for (int release = 0; release < releaseCount; release++) {
+            artifactFirstRelease[newArtifact[releaseArtifact.get(release)] + 1]++;
+        }
+        for (int i = 0; i < artifactCount; i++) {
+            artifactFirstRelease[i + 1] += artifactFirstRelease[i];
+        }
+        int[] releaseOrder = new int[releaseCount];
+        int[] artifactFill = Arrays.copyOf(artifactFirstRelease, artifactCount);
+        for (int release = 0; release < releaseCount; release++) {
+            releaseOrder[artifactFill[newArtifact[releaseArtifact.get(release)]]++] = release;
+        }
+        for (int artifact = 0; artifact < artifactCount; artifact++) {
+            Integer[] artifactReleases = new Integer[artifactFirstRelease[artifact + 1] - artifactFirstRelease[artifact]];
+            for (int i = 0; i < artifactReleases.length; i++) {
+                artifactReleases[i] = releaseOrder[artifactFirstRelease[artifact] + i];
+            }
+            Arrays.sort(artifactReleases, Comparator.comparingLong(releaseTimestamp::get));
+            for (int i = 0; i < artifactReleases.length; i++) {
+                releaseOrder[artifactFirstRelease[artifact] + i] = artifactReleases[i];
+            }
+        }
+        int[] newRelease = new int[releaseCount];
+        for (int i = 0; i < releaseCount; i++) {
+            newRelease[releaseOrder[i]] = i;
+        }
+
+        // Dependencies grouped by source release
+        int[] releaseFirstDependency = new int[releaseCount + 1];
+        for (int dependency = 0; dependency < dependencyCount; dependency++) {
+            releaseFirstDependency[newRelease[dependencySource.get(dependency)] + 1]++;
+        }
+        for (int i = 0; i < releaseCount; i++) {
+            releaseFirstDependency[i + 1] += releaseFirstDependency[i];
+        }
+        int[] dependencyOrder = new int[dependencyCount];
+        int[] releaseFill = Arrays.copyOf(releaseFirstDependency, releaseCount);
+        for (int dependency = 0; dependency < dependencyCount; dependency++) {
+            dependencyOrder[releaseFill[newRelease[dependencySource.get(dependency)]]++] = dependency;
+        }
+
+        byte[][] stringBytes = new byte[strings.size()][];
+        long stringBytesLength = 0;
+        for (int i = 0; i < strings.size(); i++) {
+            stringBytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringBytesLength += stringBytes[i].length;
+        }
+        if (stringBytesLength > Integer.MAX_VALUE) {
+            throw new IOException("String table too large for the snapshot format: " + stringBytesLength + " bytes");
+        }
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), 1 << 20))) {
+            out.writeInt(CsrGraphSnapshot.MAGIC);
+            out.writeInt(CsrGraphSnapshot.FORMAT_VERSION);
+            out.writeInt(artifactCount);
+            out.writeInt(releaseCount);
+            out.writeInt(dependencyCount);
+            out.writeInt(stringBytes.length);
+            out.writeLong(stringBytesLength);
+            for (int release : releaseOrder) {
+                out.writeLong(releaseTimestamp.get(release));
+            }
+            for (int artifact = 0; artifact < artifactCount; artifact++) {
+                out.writeInt(artifactString.get(artifactOrder[artifact]));
+            }
+            for (int offset : artifactFirstRelease) {
+                out.writeInt(offset);
+            }
+            for (int release : releaseOrder) {
+                out.writeInt(newArtifact[releaseArtifact.get(release)]);
+            }
+            for (int release : releaseOrder) {
+                out.writeInt(releaseVersion.get(release));
+            }
+            for (int offset : releaseFirstDependency) {
+                out.writeInt(offset);
+            }
+            for (int dependency : dependencyOrder) {
+                out.writeInt(newArtifact[dependencyArtifact.get(dependency)]);
+            }
+            for (int dependency : dependencyOrder) {
+                out.writeInt(dependencyVersion.get(dependency));
+            }
+            for (int dependency : dependencyOrder) {
+                out.writeInt(dependencyScope.get(dependency));
+            }
+            for (int dependency : dependencyOrder) {
+                Integer target = releaseIndex.get(artifactIds.get(dependencyArtifact.get(dependency)) + ":" + strings.get(dependencyVersion.get(dependency)));
+                out.writeInt(target == null ? CsrGraphSnapshot.NOT_FOUND : newRelease[target]);
+            }
+            int offset = 0;
+            for (byte[] bytes : stringBytes) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (int artifact = 0; artifact < artifactCount; artifact++) {
+                out.writeByte(artifactFound.get(artifactOrder[artifact]) ? 1 : 0);
+            }
+            for (byte[] bytes : stringBytes) {
+                out.write(bytes);
+            }
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Graph snapshot written to " + path + ": " + artifactCount + " artifacts, " + releaseCount + " releases, "
+                + dependencyCount + " dependencies" + (skippedDependencies > 0 ? ", " + skippedDependencies + " dependencies of unknown releases skipped" : ""));
+    }
+
+    private int getOrAddArtifact(String artifactId) {
+        Integer artifact = artifactIndex.get(artifactId);
+        if (artifact == null) {
+            artifact = artifactIds.size();
+            artifactIndex.put(artifactId, artifact);
+            artifactIds.add(artifactId);
+            artifactString.add(intern(artifactId));
+        }
+        return artifact;
+    }
+
+    private int intern(String string) {
+        Integer index = stringIndex.get(string);
+        if (index == null) {
+            index = strings.size();
+            stringIndex.put(string, index);
+            strings.add(string);
+        }
+        return index;
+    }
+
+    private static class IntArrayList {
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    private static class LongArrayList {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import io.micrometer.core.instrument.Metrics;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.exceptions.SessionExpiredException;
+
+import java.util.*;
+
+/**
+ * Bulk writer for added values: rows are grouped by target label and sent as parameter lists
+ * consumed by a single UNWIND query per batch.
+ * MERGE on the constrained AddedValue id makes writes idempotent, so concurrent writers of the same value
+ * don't fail, and a failing batch is split in halves until only the faulty rows are left out.
+ * Written and failed rows are counted by the weaver.neo4j.addedvalues.written and .failed counters.
+ */
+public class Neo4jAddedValueWriter {
+    private static final int DEFAULT_BATCH_SIZE = 10000;
+    private final Driver driver;
+    private final int batchSize;
+
+    public Neo4jAddedValueWriter(Driver driver) {
+        this.driver = driver;
+        this.batchSize = Integer.getInteger("neo4jWriteBatchSize", DEFAULT_BATCH_SIZE);
+    }
+
+    public void write(List<AddedValue<?>> computedAddedValues) {
+        if (computedAddedValues.isEmpty()) {
+            return;
+        }
+        Map<NodeType, List<Map<String, Object>>> rowsByLabel = new EnumMap<>(NodeType.class);
+        for (AddedValue addedValue : computedAddedValues) {
+            rowsByLabel.computeIfAbsent(addedValue.getAddedValueEnum().getTargetNodeType(), k -> new ArrayList<>())
+                    .add(toRow(addedValue.getNodeId(), addedValue.getAddedValueEnum().toString(), addedValue.valueToString(addedValue.getValue())));
+        }
+        for (Map.Entry<NodeType, List<Map<String, Object>>> entry : rowsByLabel.entrySet()) {
+            String query = getUnwindQuery(entry.getKey());
+            List<Map<String, Object>> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                writeBatch(query, rows.subList(i, Math.min(i + batchSize, rows.size())));
+            }
+        }
+    }
+
+    public void writeOne(String nodeId, NodeType targetNodeType, String addedValueType, String value) {
+        writeBatch(getUnwindQuery(targetNodeType), List.of(toRow(nodeId, addedValueType, value)));
+    }
+
+    /**
+     * Writes a batch in one transaction. On failure, retries both halves separately so that only the rows
+     * that really fail are dropped. When the database can't be reached the whole batch is dropped at once,
+     * splitting it would only repeat the same failure for every row.
+     * @return the number of rows that could not be written
+     */
+    private int writeBatch(String query, List<Map<String, Object>> rows) {
+        try (Session session = driver.session(SessionConfig.builder().withDefaultAccessMode(AccessMode.WRITE).build())) {
+            RequestMetrics.countQuery("addAddedValues");
+            session.executeWrite(tx -> tx.run(query, Map.of("rows", rows)).consume());
+            countRows("weaver.neo4j.addedvalues.written", rows);
+            return 0;
+        } catch (ServiceUnavailableException | SessionExpiredException e) {
+            System.out.println("Fail to add " + rows.size() + " added values, database unavailable:\n" + e.getMessage());
+            countRows("weaver.neo4j.addedvalues.failed", rows);
+            return rows.size();
+        } catch (Exception e) {
+            if (rows.size() == 1) {
+                System.out.println("Fail to add added value " + rows.get(0).get("addedValueId") + ":\n" + e.getMessage());
+                countRows("weaver.neo4j.addedvalues.failed", rows);
+                return 1;
+            }
+            int middle = rows.size() / 2;
+            return writeBatch(query, rows.subList(0, middle)) + writeBatch(query, rows.subList(middle, rows.size()));
+        }
+    }
+
+    private static void countRows(String counterName, List<Map<String, Object>> rows) {
+        Map<Object, Long> rowsByType = new HashMap<>();
+        rows.forEach(row -> rowsByType.merge(row.get("addedValueType"), 1L, Long::sum));
+        rowsByType.forEach((addedValueType, count) -> Metrics.counter(counterName, "addedValue", addedValueType.toString()).increment(count));
+    }
+
+    private static Map<String, Object> toRow(String nodeId, String addedValueType, String value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sourceId", nodeId);
+        row.put("addedValueId", nodeId + ":" + addedValueType);
+        row.put("addedValueType", addedValueType);
+        row.put("value", value);
+        return row;
+    }
+
+    private static String getUnwindQuery(NodeType targetNodeType) {
+        return "UNWIND $rows AS row " +
+                "MATCH (r:" + targetNodeType.enumToLabel() + " {id: row.sourceId}) " +
+                "MERGE (v:AddedValue {id: row.addedValueId}) " +
+                "SET v.type = row.addedValueType, v.value = row.value " +
+                "MERGE (r)-[:addedValues]->(v)";
+    }
+}
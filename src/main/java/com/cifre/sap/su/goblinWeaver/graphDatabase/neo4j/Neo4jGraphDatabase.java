@@ -3,6 +3,9 @@ package com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j;
 import com.cifre.sap.su.goblinWeaver.api.entities.ReleaseQueryList;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryDictionary;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryObject;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.csr.CsrGraphSnapshot;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.csr.CsrSnapshotBuilder;
 import com.cifre.sap.su.goblinWeaver.graphEntities.GraphObject;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
 import com.cifre.sap.su.goblinWeaver.graphEntities.ValueObject;
@@ -14,50 +17,325 @@ import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ArtifactNode;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ReleaseNode;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.AddedValueCache;
+import com.cifre.sap.su.goblinWeaver.weaver.AddedValueWriteBehind;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import io.micrometer.core.instrument.Metrics;
 import org.neo4j.driver.*;
 import org.neo4j.driver.Record;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.ResultCursor;
+import org.neo4j.driver.summary.ResultSummary;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Path;
 import org.neo4j.driver.types.Relationship;
 import org.neo4j.driver.types.TypeSystem;
 import org.neo4j.driver.util.Pair;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class Neo4jGraphDatabase implements GraphDatabaseInterface {
+    private static final String RELEASE_WITH_LIB_AND_DEPENDENCIES_QUERY = "MATCH (a:Artifact)-[re:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId AND r.id = $releaseId " +
+            "OPTIONAL MATCH (r)-[d:dependency]->(a2:Artifact)-[re2:relationship_AR]->(target:Release) " +
+            "WHERE d.scope = 'compile' AND target.version = d.targetVersion " +
+            "RETURN a, re, r, d, a2, re2, target";
+    private static final String ARTIFACT_RELEASES_QUERY = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId " +
+            "RETURN a,e,r";
+    private static final String ARTIFACT_NEW_RELEASES_QUERY = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId AND r.timestamp >= $timestamp " +
+            "RETURN a,e,r";
     private final Driver driver;
     private final QueryDictionary queryDictionary = new Neo4jQueryDictionary();
+    private final Neo4jAddedValueWriter addedValueWriter;
+    private final ExecutorService queryExecutor;
+    private final int frontierChunkSize = Integer.getInteger("neo4jFrontierChunkSize", 1000);
+    private final int addedValueLookupChunkSize = Integer.getInteger("neo4jAddedValueLookupChunkSize", 5000);
+    private final int streamEdgeEndCacheSize = Integer.getInteger("streamEdgeEndCacheSize", 100000);
+    private final Semaphore inFlightQueries = new Semaphore(Integer.getInteger("neo4jMaxInFlightQueries", 64));
+    // Async queries waiting for a permit, started on the dispatcher thread, never on a driver IO thread
+    private final Queue<Runnable> pendingQueries = new ConcurrentLinkedQueue<>();
+    private final ExecutorService queryDispatcher;
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
 
     public Neo4jGraphDatabase(String uri, String user, String password) {
-        driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password));
+        driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password), getDriverConfig());
+        addedValueWriter = new Neo4jAddedValueWriter(driver);
+        queryExecutor = Executors.newFixedThreadPool(Integer.getInteger("neo4jQueryParallelism", 8), runnable -> {
+            Thread thread = new Thread(runnable, "neo4j-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+        queryDispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "neo4j-query-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
         //Init index for added values
-        try (Session session = driver.session()) {
+        try (Session session = writeSession()) {
             session.run("CREATE CONSTRAINT addedValueConstraint IF NOT EXISTS FOR (n:AddedValue) REQUIRE n.id IS UNIQUE");
         }
     }
 
+    /**
+     * Driver settings read from system properties, default values are the driver ones.
+     * Pool metrics are published to the Micrometer global registry.
+     */
+    private static Config getDriverConfig() {
+        return Config.builder()
+                .withMaxConnectionPoolSize(Integer.getInteger("neo4jMaxConnectionPoolSize", 100))
+                .withConnectionAcquisitionTimeout(Long.getLong("neo4jConnectionAcquisitionTimeoutMs", 60000L), TimeUnit.MILLISECONDS)
+                .withMaxConnectionLifetime(Long.getLong("neo4jMaxConnectionLifetimeMs", 3600000L), TimeUnit.MILLISECONDS)
+                .withFetchSize(Long.getLong("neo4jFetchSize", 1000L))
+                .withDriverMetrics()
+                .withMetricsAdapter(MetricsAdapter.MICROMETER)
+                .build();
+    }
+
+    /**
+     * Sessions for reads, in a cluster their transactions are routed to followers and read replicas.
+     */
+    private Session readSession() {
+        return driver.session(SessionConfig.builder().withDefaultAccessMode(AccessMode.READ).build());
+    }
+
+    /**
+     * Sessions for implicit write transactions, only needed for queries that can't run in a transaction function.
+     */
+    private Session writeSession() {
+        return driver.session(SessionConfig.builder().withDefaultAccessMode(AccessMode.WRITE).build());
+    }
+
     public QueryDictionary getQueryDictionary() {
         return queryDictionary;
     }
 
+    /**
+     * Runs a user query once, in an auto-commit transaction: unlike transaction functions it is never replayed on a transient failure.
+     * The session is in read access mode, so write clauses are rejected.
+     */
     @Override
     public InternGraph executeQuery(String query) {
-        try (Session session = driver.session()) {
+        RequestMetrics.countQuery("cypher");
+        try (Session session = readSession()) {
             return treatNeo4jResult(session.run(query));
         }
     }
 
+    /**
+     * Runs a dictionary query and records, per query name, the time until the first record was available
+     * (planning included, so it drops on plan cache hits) and the time to consume the result.
+     */
+    @Override
+    public InternGraph executeQuery(QueryObject query) {
+        RequestMetrics.countQuery(query.getName());
+        try (Session session = readSession()) {
+            return session.executeRead(tx -> {
+                Result result = tx.run(query.getQuery(), query.getParameters());
+                InternGraph graph = treatNeo4jResult(result);
+                recordQueryTimes(query, result.consume());
+                return graph;
+            });
+        }
+    }
+
+    /**
+     * Runs a dictionary query returning plain columns, one map per record.
+     */
+    @Override
+    public List<Map<String, Object>> executeRowQuery(QueryObject query) {
+        RequestMetrics.countQuery(query.getName());
+        try (Session session = readSession()) {
+            return session.executeRead(tx -> {
+                Result result = tx.run(query.getQuery(), query.getParameters());
+                List<Map<String, Object>> rows = new ArrayList<>();
+                while (result.hasNext()) {
+                    rows.add(result.next().asMap());
+                }
+                recordQueryTimes(query, result.consume());
+                return rows;
+            });
+        }
+    }
+
+    private static void recordQueryTimes(QueryObject query, ResultSummary summary) {
+        Metrics.timer("weaver.neo4j.query.available", "query", query.getName())
+                .record(summary.resultAvailableAfter(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        Metrics.timer("weaver.neo4j.query.consumed", "query", query.getName())
+                .record(summary.resultConsumedAfter(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public InternGraph executeQueryWithParameters(String query, Map<String, Object> parameters) {
-        try (Session session = driver.session()) {
-            return treatNeo4jResult(session.run(query, parameters));
+        return executeQueryWithParameters("cypher", query, parameters);
+    }
+
+    /**
+     * @param queryName name of the query in the query metrics
+     */
+    private InternGraph executeQueryWithParameters(String queryName, String query, Map<String, Object> parameters) {
+        RequestMetrics.countQuery(queryName);
+        try (Session session = readSession()) {
+            return session.executeRead(tx -> treatNeo4jResult(tx.run(query, parameters)));
         }
     }
 
-    private InternGraph treatNeo4jResult(Result result){
+    /**
+     * Pulls the records lazily from the result and hands every node, edge and value to the consumer as soon as it is read.
+     * Nodes and relationships already sent are skipped, they are remembered in compressed bitmaps of their element ids.
+     * Edge ends are resolved with the nodes of the same record and the last streamEdgeEndCacheSize nodes streamed:
+     * unlike /cypher, an edge whose end node comes later in the result, or much earlier, keeps the Neo4j element id.
+     */
+    @Override
+    public void executeQueryStreaming(String query, Consumer<GraphObject> consumer) {
+        SeenElementIds seenNodes = new SeenElementIds();
+        SeenElementIds seenRelationships = new SeenElementIds();
+        // Recently streamed nodes, Neo4j element id to node id
+        Map<String, String> streamedNodeIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > streamEdgeEndCacheSize;
+            }
+        };
+        RequestMetrics.countQuery("cypher");
+        // Auto-commit read: a transaction function could be retried after objects were already sent
+        try (Session session = readSession()) {
+            Result result = session.run(query);
+            while (result.hasNext()) {
+                Record record = result.next();
+                List<Node> recordNodes = new ArrayList<>();
+                List<Relationship> recordRelationships = new ArrayList<>();
+                for (Pair<String, Value> pair : record.fields()) {
+                    if (pair.value().hasType(TypeSystem.getDefault().NODE())){
+                        recordNodes.add(pair.value().asNode());
+                    }
+                    else if (pair.value().hasType(TypeSystem.getDefault().RELATIONSHIP())){
+                        recordRelationships.add(pair.value().asRelationship());
+                    }
+                    else if (pair.value().hasType(TypeSystem.getDefault().PATH())) {
+                        pair.value().asPath().nodes().forEach(recordNodes::add);
+                        pair.value().asPath().relationships().forEach(recordRelationships::add);
+                    }
+                    else if (pair.value().hasType(TypeSystem.getDefault().LIST())){
+                        for (Object item : pair.value().asList()) {
+                            if (item instanceof Node) {
+                                recordNodes.add((Node) item);
+                            }
+                            else if (item instanceof Relationship) {
+                                recordRelationships.add((Relationship) item);
+                            }
+                        }
+                    }
+                    else{
+                        consumer.accept(new ValueObject(pair.key(), pair.value().toString().replaceAll("[\"]","")));
+                    }
+                }
+                for (Node node : recordNodes) {
+                    NodeObject nodeObject = generateNode(node);
+                    if (nodeObject != null) {
+                        streamedNodeIds.put(nodeObject.getNeo4jId(), nodeObject.getId());
+                        if (seenNodes.add(node.elementId())) {
+                            consumer.accept(nodeObject);
+                        }
+                    }
+                }
+                for (Relationship relationship : recordRelationships) {
+                    EdgeObject edgeObject = generateRelationship(relationship);
+                    if (edgeObject != null && seenRelationships.add(relationship.elementId())) {
+                        edgeObject.setSourceId(streamedNodeIds.getOrDefault(edgeObject.getSourceId(), edgeObject.getSourceId()));
+                        edgeObject.setTargetId(streamedNodeIds.getOrDefault(edgeObject.getTargetId(), edgeObject.getTargetId()));
+                        consumer.accept(edgeObject);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public CompletionStage<InternGraph> executeQueryAsync(String query) {
+        return executeQueryWithParametersAsync("cypher", query, Collections.emptyMap());
+    }
+
+    /**
+     * Runs the query on an AsyncSession. At most neo4jMaxInFlightQueries queries are in flight at the same time,
+     * the queries exceeding this bound are queued without blocking the caller and sent when a permit is released.
+     * Records are mapped to the graph on the query executor, not on the driver IO thread.
+     */
+    @Override
+    public CompletionStage<InternGraph> executeQueryWithParametersAsync(String query, Map<String, Object> parameters) {
+        return executeQueryWithParametersAsync("cypher", query, parameters);
+    }
+
+    private CompletionStage<InternGraph> executeQueryWithParametersAsync(String queryName, String query, Map<String, Object> parameters) {
+        RequestMetrics.countQuery(queryName);
+        CompletableFuture<List<Record>> resultRecords = new CompletableFuture<>();
+        pendingQueries.add(() -> {
+            AsyncSession session = null;
+            try {
+                session = driver.session(AsyncSession.class, SessionConfig.builder().withDefaultAccessMode(AccessMode.READ).build());
+                AsyncSession querySession = session;
+                session.executeReadAsync(tx -> tx.runAsync(query, parameters).thenCompose(ResultCursor::listAsync))
+                        .whenComplete((records, error) -> querySession.closeAsync().whenComplete((ignored, closeError) -> {
+                            releaseQueryPermit();
+                            if (error != null) {
+                                resultRecords.completeExceptionally(error);
+                            } else {
+                                resultRecords.complete(records);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                if (session != null) {
+                    session.closeAsync();
+                }
+                // Released without dispatching, the dispatch loop running this query goes on with the next one
+                inFlightQueries.release();
+                resultRecords.completeExceptionally(e);
+            }
+        });
+        scheduleDispatch();
+        return resultRecords.thenApplyAsync(records -> treatNeo4jResult(records.iterator()), queryExecutor);
+    }
+
+    /**
+     * Runs the dispatch loop on the dispatcher thread, unless a run is already scheduled and has not started yet.
+     */
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            queryDispatcher.execute(this::dispatchPendingQueries);
+        }
+    }
+
+    /**
+     * Starts the pending queries while permits are free. The flag is cleared before the queue is read, and the queue
+     * filled or the permit released before a run is scheduled, so a query is never left pending with a free permit.
+     */
+    private void dispatchPendingQueries() {
+        dispatchScheduled.set(false);
+        while (!pendingQueries.isEmpty() && inFlightQueries.tryAcquire()) {
+            Runnable query = pendingQueries.poll();
+            if (query != null) {
+                query.run();
+            } else {
+                inFlightQueries.release();
+            }
+        }
+    }
+
+    private void releaseQueryPermit() {
+        inFlightQueries.release();
+        scheduleDispatch();
+    }
+
+    private InternGraph treatNeo4jResult(Iterator<Record> result){
         InternGraph graph = new InternGraph();
         while (result.hasNext()) {
             Record record = result.next();
@@ -110,72 +388,56 @@ public class Neo4jGraphDatabase implements GraphDatabaseInterface {
         return graph;
     }
 
+    /**
+     * Looks up the added values with the unique AddedValue id index, only for the types that target the node type.
+     * Node ids are split in chunks queried in parallel, each row gives the node id and the type in separate columns.
+     */
     @Override
     public Map<String,Map<AddedValueEnum,String>> getNodeAddedValues(List<String> nodeIds, Set<AddedValueEnum> addedValues, NodeType nodeType) {
-        Map<String,Map<AddedValueEnum,String>> IdAndAddedValuesMap = new HashMap<>();
-        String query = "MATCH (a:AddedValue) WHERE a.id IN $addedValuesIds RETURN a";
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("addedValuesIds", nodeIds.stream()
-                .flatMap(nodeId -> addedValues.stream().map(addedValue -> nodeId + ":" + addedValue.toString()))
-                .collect(Collectors.toList()));
-        try (Session session = driver.session()) {
-            Result result = session.run(query, parameters);
-            while (result.hasNext()) {
-                Record record = result.next();
-                Map<AddedValueEnum, String> innerMap = new HashMap<>();
-                Pair<String, Value> pair = record.fields().get(0);
-                if (pair.value().hasType(TypeSystem.getDefault().NODE())) {
-                    innerMap.put(AddedValueEnum.valueOf(pair.value().asNode().get("type").asString()), pair.value().asNode().get("value").asString().replace("\\", ""));
-                    String nodeId = pair.value().asNode().get("id").asString();
-                    int lastIndex = nodeId.lastIndexOf(':');
-                    nodeId = nodeId.substring(0,lastIndex);
-                    IdAndAddedValuesMap.computeIfAbsent(nodeId, k -> new HashMap<>()).putAll(innerMap);
+        List<String> types = addedValues.stream()
+                .filter(addedValue -> addedValue.getTargetNodeType().equals(nodeType))
+                .map(AddedValueEnum::toString)
+                .collect(Collectors.toList());
+        if (types.isEmpty() || nodeIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        String query = "UNWIND $nodeIds AS nodeId UNWIND $types AS type " +
+                "MATCH (a:AddedValue {id: nodeId + ':' + type}) " +
+                "RETURN nodeId, type, a.value AS value";
+        List<CompletableFuture<Map<String,Map<AddedValueEnum,String>>>> chunkResults = new ArrayList<>();
+        for (int i = 0; i < nodeIds.size(); i += addedValueLookupChunkSize) {
+            List<String> chunk = nodeIds.subList(i, Math.min(i + addedValueLookupChunkSize, nodeIds.size()));
+            RequestMetrics.countQuery("getNodeAddedValues");
+            chunkResults.add(CompletableFuture.supplyAsync(() -> {
+                try (Session session = readSession()) {
+                    return session.executeRead(tx -> {
+                        Map<String,Map<AddedValueEnum,String>> chunkAddedValues = new HashMap<>();
+                        Result result = tx.run(query, Map.of("nodeIds", chunk, "types", types));
+                        while (result.hasNext()) {
+                            Record record = result.next();
+                            chunkAddedValues.computeIfAbsent(record.get(0).asString(), k -> new EnumMap<>(AddedValueEnum.class))
+                                    .put(AddedValueEnum.valueOf(record.get(1).asString()), record.get(2).asString().replace("\\", ""));
+                        }
+                        return chunkAddedValues;
+                    });
                 }
-            }
+            }, queryExecutor));
+        }
+        Map<String,Map<AddedValueEnum,String>> IdAndAddedValuesMap = new HashMap<>();
+        for (CompletableFuture<Map<String,Map<AddedValueEnum,String>>> chunkResult : chunkResults) {
+            IdAndAddedValuesMap.putAll(chunkResult.join());
         }
         return IdAndAddedValuesMap;
     }
 
     @Override
     public void addAddedValues(List<AddedValue<?>> computedAddedValues){
-        try (Session session = driver.session()) {
-            Transaction tx = session.beginTransaction();
-            int batch = 0;
-            Map<String, Object> parameters = new HashMap<>();
-            for(AddedValue addedValue : computedAddedValues){
-                batch++;
-                parameters.clear();
-                parameters.put("sourceId",addedValue.getNodeId());
-                parameters.put("addedValueId",addedValue.getNodeId()+":"+addedValue.getAddedValueEnum().toString());
-                parameters.put("addedValueType", addedValue.getAddedValueEnum().toString());
-                parameters.put("value", addedValue.valueToString(addedValue.getValue()));
-                tx.run("MATCH (r:"+addedValue.getAddedValueEnum().getTargetNodeType().enumToLabel()+" {id: $sourceId}) CREATE (r)-[l:addedValues]->(v:AddedValue {id: $addedValueId, type: $addedValueType, value: $value})", parameters);
-                if(batch % 10000 == 0){
-                    tx.commit();
-                    tx.close();
-                    tx = session.beginTransaction();
-                }
-            }
-            tx.commit();
-            tx.close();
-        } catch (Exception e) {
-            System.out.println("Fail to add added values:\n"+e.getMessage());
-        }
+        addedValueWriter.write(computedAddedValues);
     }
 
     @Override
     public void putOneAddedValueOnGraph(String nodeId, AddedValueEnum addedValueType, String value){
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("nodeId", nodeId);
-        parameters.put("addedValueId", nodeId+":"+addedValueType.toString());
-        parameters.put("addedValueType", addedValueType.toString());
-        parameters.put("value", value);
-
-        String query = "MATCH (r:"+addedValueType.getTargetNodeType().enumToLabel()+" {id:$nodeId}) " +
-                "CREATE (r)-[l:addedValues]->(v:AddedValue {id: $addedValueId, type: $addedValueType, value: $value})";
-        try (Session session = driver.session()) {
-            session.run(query, parameters);
-        }
+        addedValueWriter.writeOne(nodeId, addedValueType.getTargetNodeType(), addedValueType.toString(), value);
     }
 
     @Override
@@ -192,59 +454,154 @@ public class Neo4jGraphDatabase implements GraphDatabaseInterface {
         }
         cypherQuery.append("] ")
                 .append("CALL { WITH n DETACH DELETE n } IN TRANSACTIONS OF 10000 ROWS;");
-        try (Session session = driver.session()) {
+        // Pending writes of these types would bring them back after the removal
+        AddedValueWriteBehind.getInstance().discard(addedValuesType);
+        // CALL IN TRANSACTIONS needs an implicit transaction
+        try (Session session = writeSession()) {
             session.run(cypherQuery.toString());
         }
+        AddedValueCache.getInstance().invalidate(addedValuesType);
+    }
+
+    @Override
+    public Set<String> removeReleasesAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType) {
+        return removeAddedValue("removeReleasesAddedValue",
+                "UNWIND $releaseIds AS releaseId " +
+                "MATCH (v:AddedValue {id: releaseId + ':' + $addedValueType}) " +
+                "DETACH DELETE v " +
+                "RETURN releaseId", releaseIds, addedValueType);
+    }
+
+    /**
+     * @return all the direct compile dependents of the releases, with or without a stored value to remove
+     */
+    @Override
+    public Set<String> removeDependentsAddedValue(Collection<String> releaseIds, AddedValueEnum addedValueType) {
+        return removeAddedValue("removeDependentsAddedValue",
+                "UNWIND $releaseIds AS releaseId " +
+                "MATCH (dep:Release {id: releaseId})<-[:relationship_AR]-(:Artifact)<-[d:dependency]-(r:Release) " +
+                "WHERE d.scope = 'compile' AND d.targetVersion = dep.version " +
+                "WITH DISTINCT r " +
+                "OPTIONAL MATCH (v:AddedValue {id: r.id + ':' + $addedValueType}) " +
+                "DETACH DELETE v " +
+                "RETURN r.id AS releaseId", releaseIds, addedValueType);
+    }
+
+    /**
+     * Runs the removal query by chunks of releases, one write transaction per chunk.
+     * @return the release ids returned by the query
+     */
+    private Set<String> removeAddedValue(String queryName, String query, Collection<String> releaseIds, AddedValueEnum addedValueType) {
+        Set<String> removedReleaseIds = new HashSet<>();
+        List<String> releaseIdList = new ArrayList<>(releaseIds);
+        try (Session session = writeSession()) {
+            for (int i = 0; i < releaseIdList.size(); i += frontierChunkSize) {
+                List<String> chunk = releaseIdList.subList(i, Math.min(i + frontierChunkSize, releaseIdList.size()));
+                RequestMetrics.countQuery(queryName);
+                removedReleaseIds.addAll(session.executeWrite(tx -> tx.run(query, Map.of("releaseIds", chunk, "addedValueType", addedValueType.toString()))
+                        .list(record -> record.get("releaseId").asString())));
+            }
+        }
+        AddedValueCache.getInstance().invalidate(removedReleaseIds, addedValueType);
+        return removedReleaseIds;
+    }
+
+    /**
+     * Streams artifacts, releases and dependencies into a CSR snapshot file, see {@link CsrGraphSnapshot}.
+     */
+    public void exportCsrSnapshot(java.nio.file.Path snapshotPath) throws IOException {
+        CsrSnapshotBuilder builder = new CsrSnapshotBuilder();
+        try (Session session = readSession()) {
+            Result artifacts = session.run("MATCH (a:Artifact) RETURN a.id AS id, a.found AS found");
+            artifacts.forEachRemaining(record -> builder.addArtifact(record.get("id").asString(), record.get("found").asBoolean(false)));
+            Result releases = session.run("MATCH (a:Artifact)-[:relationship_AR]->(r:Release) " +
+                    "RETURN a.id AS artifactId, r.version AS version, r.timestamp AS timestamp");
+            releases.forEachRemaining(record -> builder.addRelease(record.get("artifactId").asString(),
+                    record.get("version").asString(), record.get("timestamp").asLong(0)));
+            Result dependencies = session.run("MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
+                    "RETURN r.id AS releaseId, a.id AS artifactId, d.targetVersion AS targetVersion, d.scope AS scope");
+            dependencies.forEachRemaining(record -> builder.addDependency(record.get("releaseId").asString(),
+                    record.get("artifactId").asString(), record.get("targetVersion").asString(null), record.get("scope").asString(null)));
+        }
+        builder.write(snapshotPath);
     }
 
     @Override
-    public InternGraph getRootedGraph(Set<String> releaseIdList){
+    public InternGraph getRootedGraph(Set<String> releaseIdList, Integer maxDepth, Integer maxNodes){
         InternGraph rootedGraph = new InternGraph();
-        Set<String> releaseToTreat = new HashSet<>(releaseIdList);
+        Set<String> frontier = new HashSet<>(releaseIdList);
         Set<String> visitedRelease = new HashSet<>();
-        Map<String, Object> parameters = new HashMap<>();
+        boolean truncated = false;
+        int depth = 0;
         String query = "MATCH (a:Artifact)-[re:relationship_AR]->(r:Release)-[d:dependency]->(a2:Artifact)-[re2:relationship_AR]->(target:Release) " +
-                "WHERE a.id = $artifactId AND r.id = $releaseId AND d.scope = 'compile' AND target.version=d.targetVersion " +
+                "WHERE r.id IN $frontier AND d.scope = 'compile' AND target.version = d.targetVersion " +
                 "RETURN a,re,r,d,a2,re2,target";
-        while (!releaseToTreat.isEmpty()){
-            String releaseId = releaseToTreat.iterator().next();
-            String[] splitedReleaseId = releaseId.split(":");
-            String artifactId = splitedReleaseId[0]+":"+splitedReleaseId[1];
-            parameters.put("releaseId",releaseId);
-            parameters.put("artifactId",artifactId);
-            InternGraph resultGraph = executeQueryWithParameters(query, parameters);
-            rootedGraph.mergeGraph(resultGraph);
-            visitedRelease.add(releaseId);
-            releaseToTreat.remove(releaseId);
-            Set<String> newReleaseToTreat = resultGraph.getGraphNodes().stream().filter(node -> node instanceof ReleaseNode).map(NodeObject::getId).collect(Collectors.toSet());
-            newReleaseToTreat.removeAll(visitedRelease);
-            releaseToTreat.addAll(newReleaseToTreat);
+        // Level-synchronous BFS: the whole frontier is expanded at once, in parallel chunks
+        while (!frontier.isEmpty()){
+            if((maxDepth != null && depth >= maxDepth) || (maxNodes != null && rootedGraph.getGraphNodes().size() >= maxNodes)){
+                truncated = true;
+                break;
+            }
+            visitedRelease.addAll(frontier);
+            InternGraph levelGraph = executeChunkedQuery("getRootedGraph", query, Map.of(), "frontier", frontier, frontierChunkSize);
+            // The node budget is enforced on the returned nodes, only the merged releases are expanded
+            truncated |= rootedGraph.mergeGraph(levelGraph, maxNodes != null ? maxNodes : Integer.MAX_VALUE);
+            frontier = levelGraph.getGraphNodes().stream().filter(node -> node instanceof ReleaseNode && rootedGraph.getGraphNodes().contains(node))
+                    .map(NodeObject::getId).collect(Collectors.toSet());
+            frontier.removeAll(visitedRelease);
+            depth++;
+        }
+        if(truncated){
+            rootedGraph.addValue(new ValueObject("truncated", "true"));
         }
         return rootedGraph;
     }
 
+    /**
+     * Splits the collection parameter in chunks and runs one query per chunk on the query executor.
+     */
+    private InternGraph executeChunkedQuery(String queryName, String query, Map<String, Object> parameters, String parameterName, Collection<?> parameterValues, int chunkSize){
+        List<Object> values = new ArrayList<>(parameterValues);
+        List<CompletableFuture<InternGraph>> chunkResults = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += chunkSize) {
+            List<Object> chunk = values.subList(i, Math.min(i + chunkSize, values.size()));
+            Map<String, Object> chunkParameters = new HashMap<>(parameters);
+            chunkParameters.put(parameterName, chunk);
+            chunkResults.add(CompletableFuture.supplyAsync(RequestMetrics.propagate(() -> executeQueryWithParameters(queryName, query, chunkParameters)), queryExecutor));
+        }
+        InternGraph resultGraph = new InternGraph();
+        for (CompletableFuture<InternGraph> chunkResult : chunkResults) {
+            resultGraph.mergeGraph(chunkResult.join());
+        }
+        return resultGraph;
+    }
+
     @Override
     public InternGraph getReleaseWithLibAndDependencies(String releaseId){
+        return executeQueryWithParameters("getReleaseWithLibAndDependencies", RELEASE_WITH_LIB_AND_DEPENDENCIES_QUERY, getReleaseWithLibAndDependenciesParameters(releaseId));
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getReleaseWithLibAndDependenciesAsync(String releaseId){
+        return executeQueryWithParametersAsync("getReleaseWithLibAndDependencies", RELEASE_WITH_LIB_AND_DEPENDENCIES_QUERY, getReleaseWithLibAndDependenciesParameters(releaseId));
+    }
+
+    private static Map<String, Object> getReleaseWithLibAndDependenciesParameters(String releaseId){
         Map<String, Object> parameters = new HashMap<>();
         String[] splitedGav = releaseId.split(":");
         parameters.put("releaseId",releaseId);
         parameters.put("artifactId",splitedGav[0]+":"+splitedGav[1]);
-        String query = "MATCH (a:Artifact)-[re:relationship_AR]->(r:Release) " +
-                "WHERE a.id = $artifactId AND r.id = $releaseId " +
-                "OPTIONAL MATCH (r)-[d:dependency]->(a2:Artifact)-[re2:relationship_AR]->(target:Release) " +
-                "WHERE d.scope = 'compile' AND target.version = d.targetVersion " +
-                "RETURN a, re, r, d, a2, re2, target";
-        return executeQueryWithParameters(query, parameters);
+        return parameters;
     }
 
     @Override
     public InternGraph getArtifactReleasesGraph(String artifactId){
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("artifactId",artifactId);
-        String query = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = $artifactId " +
-                "RETURN a,e,r";
-        return executeQueryWithParameters(query, parameters);
+        return executeQueryWithParameters("getArtifactReleasesGraph", ARTIFACT_RELEASES_QUERY, Map.of("artifactId", artifactId));
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getArtifactReleasesGraphAsync(String artifactId){
+        return executeQueryWithParametersAsync("getArtifactReleasesGraph", ARTIFACT_RELEASES_QUERY, Map.of("artifactId", artifactId));
     }
 
     @Override
@@ -254,40 +611,55 @@ public class Neo4jGraphDatabase implements GraphDatabaseInterface {
         String query = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
                 "WHERE r.id = $releaseId " +
                 "RETURN a,e,r";
-        return executeQueryWithParameters(query, parameters);
+        return executeQueryWithParameters("getArtifactSpecificReleasesGraph", query, parameters);
     }
 
     @Override
     public InternGraph getArtifactNewReleasesGraph(String artifactId, long timestamp){
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("artifactId",artifactId);
-        parameters.put("timestamp",timestamp);
-        String query = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = $artifactId AND r.timestamp >= $timestamp " +
-                "RETURN a,e,r";
-        return executeQueryWithParameters(query, parameters);
+        return executeQueryWithParameters("getArtifactNewReleasesGraph", ARTIFACT_NEW_RELEASES_QUERY, Map.of("artifactId", artifactId, "timestamp", timestamp));
+    }
+
+    @Override
+    public CompletionStage<InternGraph> getArtifactNewReleasesGraphAsync(String artifactId, long timestamp){
+        return executeQueryWithParametersAsync("getArtifactNewReleasesGraph", ARTIFACT_NEW_RELEASES_QUERY, Map.of("artifactId", artifactId, "timestamp", timestamp));
     }
 
     @Override
-    public InternGraph getAllPossibilitiesGraph(Set<String> artifactIdList){
+    public InternGraph getAllPossibilitiesGraph(Set<String> artifactIdList, Integer maxDepth, Integer maxReleasesPerArtifact, Integer maxNodes){
         InternGraph graphAllPossibilities = new InternGraph();
         Set<String> artifactToTreat = new HashSet<>(artifactIdList);
         Set<String> visitedArtifact = new HashSet<>();
-        Map<String, Object> parameters = new HashMap<>();
-        String query = "MATCH (a:Artifact)-[e:relationship_AR*]->(r:Release) " +
-                "WHERE a.id IN $artifactIdList " +
-                "WITH a, r, e MATCH (r)-[d:dependency]->(a2:Artifact) " +
+        boolean truncated = false;
+        int depth = 0;
+        // Single hop per level: releases of the artifacts (optionally only the latest ones) and their compile dependencies
+        String releasesQuery = maxReleasesPerArtifact != null
+                ? "CALL { WITH a MATCH (a)-[e:relationship_AR]->(r:Release) RETURN e, r ORDER BY r.timestamp DESC LIMIT $releaseCap } "
+                : "MATCH (a)-[e:relationship_AR]->(r:Release) ";
+        String query = "MATCH (a:Artifact) WHERE a.id IN $artifactIdList " +
+                releasesQuery +
+                "MATCH (r)-[d:dependency]->(a2:Artifact) " +
                 "WHERE d.scope = 'compile' " +
-                "RETURN a,e,r,d, a2";
+                "RETURN a,e,r,d,a2";
+        Map<String, Object> parameters = new HashMap<>();
+        if(maxReleasesPerArtifact != null){
+            parameters.put("releaseCap", maxReleasesPerArtifact);
+        }
         while (!artifactToTreat.isEmpty()){
-            parameters.put("artifactIdList",artifactToTreat);
-            InternGraph resultGraph = executeQueryWithParameters(query, parameters);
-            graphAllPossibilities.mergeGraph(resultGraph);
+            if((maxDepth != null && depth >= maxDepth) || (maxNodes != null && graphAllPossibilities.getGraphNodes().size() >= maxNodes)){
+                truncated = true;
+                break;
+            }
             visitedArtifact.addAll(artifactToTreat);
-            Set<String> newArtifactToTreat = resultGraph.getGraphNodes().stream().filter(node -> node instanceof ArtifactNode).map(NodeObject::getId).collect(Collectors.toSet());
-            newArtifactToTreat.removeAll(visitedArtifact);
-            artifactToTreat.clear();
-            artifactToTreat.addAll(newArtifactToTreat);
+            InternGraph levelGraph = executeChunkedQuery("getAllPossibilitiesGraph", query, parameters, "artifactIdList", artifactToTreat, frontierChunkSize);
+            // The node budget is enforced on the returned nodes, only the merged artifacts are expanded
+            truncated |= graphAllPossibilities.mergeGraph(levelGraph, maxNodes != null ? maxNodes : Integer.MAX_VALUE);
+            artifactToTreat = levelGraph.getGraphNodes().stream().filter(node -> node instanceof ArtifactNode && graphAllPossibilities.getGraphNodes().contains(node))
+                    .map(NodeObject::getId).collect(Collectors.toSet());
+            artifactToTreat.removeAll(visitedArtifact);
+            depth++;
+        }
+        if(truncated){
+            graphAllPossibilities.addValue(new ValueObject("truncated", "true"));
         }
         return graphAllPossibilities;
     }
@@ -299,24 +671,48 @@ public class Neo4jGraphDatabase implements GraphDatabaseInterface {
                 "WHERE a.id IN $artifactIdList " +
                 "RETURN a,e,r";
             parameters.put("artifactIdList", artifactIdList);
-        return executeQueryWithParameters(query, parameters);
+        return executeQueryWithParameters("getDirectPossibilitiesGraph", query, parameters);
     }
 
     @Override
     public InternGraph getDirectNewPossibilitiesGraph(Set<ReleaseQueryList.Release> releaseIdList){
-        InternGraph resultGraph = new InternGraph();
-        String query = "MATCH (r:Release) WHERE r.id = $releaseId WITH r.timestamp as currentTimestamp "+
-                "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = $artifactId AND r.timestamp >= currentTimestamp " +
+        // All releases are resolved together, in parallel chunks of one UNWIND query
+        String query = "UNWIND $releases AS release " +
+                "MATCH (current:Release {id: release.releaseId}) " +
+                "MATCH (a:Artifact {id: release.artifactId})-[e:relationship_AR]->(r:Release) " +
+                "WHERE r.timestamp >= current.timestamp " +
                 "RETURN a,e,r";
-        Map<String, Object> parameters = new HashMap<>();
+        List<Map<String, Object>> releases = new ArrayList<>();
         for(ReleaseQueryList.Release release : releaseIdList){
-            parameters.put("releaseId", release.getGav());
-            parameters.put("artifactId", release.getGa());
-            InternGraph graph = executeQueryWithParameters(query, parameters);
-            resultGraph.mergeGraph(graph);
+            releases.add(Map.of("releaseId", release.getGav(), "artifactId", release.getGa()));
+        }
+        return executeChunkedQuery("getDirectNewPossibilitiesGraph", query, Map.of(), "releases", releases, frontierChunkSize);
+    }
+
+    /**
+     * Element ids of the objects already streamed. The numeric part of Neo4j 5 element ids ("4:database:id") is kept in a
+     * compressed bitmap, so the memory stays small for dense ids whatever the result size. Other formats go to a hash set.
+     */
+    private static class SeenElementIds {
+        private final Roaring64Bitmap ids = new Roaring64Bitmap();
+        private final Set<String> otherIds = new HashSet<>();
+
+        /**
+         * @return true if the element id was not seen before
+         */
+        boolean add(String elementId) {
+            long id;
+            try {
+                id = Long.parseLong(elementId.substring(elementId.lastIndexOf(':') + 1));
+            } catch (NumberFormatException e) {
+                return otherIds.add(elementId);
+            }
+            if (ids.contains(id)) {
+                return false;
+            }
+            ids.addLong(id);
+            return true;
         }
-        return resultGraph;
     }
 
     private static NodeObject generateNode(Node neo4jNode){
@@ -1,6 +1,7 @@
 package com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j;
 
 import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryDictionary;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.QueryObject;
 import com.cifre.sap.su.goblinWeaver.utils.GraphUpdatedChecker;
 
 import java.time.Instant;
@@ -8,108 +9,171 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.*;
 
 public class Neo4jQueryDictionary implements QueryDictionary {
+    // Query texts are constants so that Neo4j plans each of them only once
+    private static final String SPECIFIC_ARTIFACT = "MATCH (a:Artifact) " +
+            "WHERE a.id = $artifactId " +
+            "RETURN a";
+    private static final String ARTIFACT_RELEASES = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId " +
+            "RETURN r";
+    private static final String LINKED_ARTIFACT_RELEASES_AND_EDGES = "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId " +
+            "RETURN a,e,r";
+    private static final String SPECIFIC_RELEASE = "MATCH (r:Release) " +
+            "WHERE r.id = $releaseId " +
+            "RETURN r";
+    private static final String RELEASE_DEPENDENT = "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
+            "WHERE a.id = $artifactId AND d.targetVersion = $releaseVersion " +
+            "RETURN r";
+    private static final String NEWER_RELEASES = "MATCH (r:Release) " +
+            "WHERE r.id = $releaseId " +
+            "WITH r.timestamp as timestamp " +
+            "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
+            "WHERE a.id = $artifactId AND r.timestamp > timestamp " +
+            "RETURN r";
+    private static final String RELEASE_FRESHNESS = "MATCH (r1:Release)<-[:relationship_AR]-(:Artifact)-[:relationship_AR]->(r2:Release) " +
+            "WHERE r1.id = $releaseId AND r2.timestamp > r1.timestamp " +
+            "WITH r2, r2.timestamp - r1.timestamp AS difference " +
+            "RETURN count(r2) AS numberMissedRelease, max(difference) AS outdatedTimeInMs";
+    private static final String RELEASE_POPULARITY_1_YEAR = "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
+            "WHERE a.id = $artifactId AND d.targetVersion = $releaseVersion AND r.timestamp > $oneYearAgoTimestamp " +
+            "RETURN count(d)";
+    private static final String RELEASES_FRESHNESS = "UNWIND $releaseIds AS releaseId " +
+            "MATCH (r1:Release {id: releaseId})<-[:relationship_AR]-(:Artifact)-[:relationship_AR]->(r2:Release) " +
+            "WHERE r2.timestamp > r1.timestamp " +
+            "RETURN releaseId, count(r2) AS numberMissedRelease, max(r2.timestamp - r1.timestamp) AS outdatedTimeInMs";
+    private static final String RELEASES_POPULARITY_1_YEAR = "UNWIND $releases AS release " +
+            "MATCH (r:Release)-[d:dependency]->(a:Artifact {id: release.artifactId}) " +
+            "WHERE d.targetVersion = release.version AND r.timestamp > $oneYearAgoTimestamp " +
+            "RETURN release.releaseId AS releaseId, count(d) AS popularity";
+    private static final String ARTIFACTS_RHYTHM = "UNWIND $artifactIds AS artifactId " +
+            "MATCH (a:Artifact {id: artifactId})-[:relationship_AR]->(r:Release) " +
+            "RETURN artifactId, collect(r.timestamp) AS timestamps";
+    private static final String ARTIFACT_RHYTHM = "MATCH (a:Artifact) -[e:relationship_AR]-> (r:Release) " +
+            "WHERE a.id = $artifactId " +
+            "RETURN r.timestamp AS timestamp";
+    private static final String RELEASE_DIRECT_COMPILE_DEPENDENCIES = "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
+            "WHERE r.id = $releaseId AND (d.scope = 'compile') " +
+            "WITH a,d " +
+            "MATCH (dep:Release {id: a.id+':'+d.targetVersion}) " +
+            "RETURN dep";
+    private static final String RELEASES_DIRECT_COMPILE_DEPENDENCIES = "UNWIND $releaseIds AS releaseId " +
+            "MATCH (r:Release {id: releaseId})-[d:dependency]->(a:Artifact) " +
+            "WHERE d.scope = 'compile' " +
+            "MATCH (dep:Release {id: a.id+':'+d.targetVersion}) " +
+            "RETURN releaseId, dep.id AS dependencyId";
+    private static final String RELEASE_DIRECT_COMPILE_DEPENDENCIES_EDGE_AND_ARTIFACT = "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
+            "WHERE r.id = $releaseId AND (d.scope = 'compile') " +
+            "RETURN a,d";
+    private static final String LAST_RELEASE_TIMESTAMP = "MATCH (r:Release) " +
+            "RETURN MAX(r.timestamp) AS maxTimestamp";
+    private static final String DEPENDENCY_GRAPH_FROM_RELEASE_ID_LIST = "MATCH (r:Release)-[d:dependency]->(a:Artifact)-[e:relationship_AR]->(r2:Release) " +
+            "WHERE r.id IN $releaseIdList AND d.scope = 'compile' AND r2.version = d.targetVersion " +
+            "RETURN d,a,e,r2";
 
     @Override
-    public String getSpecificArtifactQuery(String artifactId){
-        return "MATCH (a:Artifact) " +
-                "WHERE a.id = '" + artifactId + "' " +
-                "RETURN a";
+    public QueryObject getSpecificArtifactQuery(String artifactId){
+        return new QueryObject("getSpecificArtifact", SPECIFIC_ARTIFACT, Map.of("artifactId", artifactId));
     }
 
     @Override
-    public String getArtifactReleasesQuery(String artifactId) {
-        return "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = '" + artifactId + "' " +
-                "RETURN r";
+    public QueryObject getArtifactReleasesQuery(String artifactId) {
+        return new QueryObject("getArtifactReleases", ARTIFACT_RELEASES, Map.of("artifactId", artifactId));
     }
 
     @Override
-    public String getLinkedArtifactReleasesAndEdgesQuery(String artifactId) {
-        return "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = '" + artifactId + "' " +
-                "RETURN a,e,r";
+    public QueryObject getLinkedArtifactReleasesAndEdgesQuery(String artifactId) {
+        return new QueryObject("getLinkedArtifactReleasesAndEdges", LINKED_ARTIFACT_RELEASES_AND_EDGES, Map.of("artifactId", artifactId));
     }
 
     @Override
-    public String getSpecificRelease(String releaseId) {
-        return "MATCH (r:Release) " +
-                "WHERE r.id = '" + releaseId + "' " +
-                "RETURN r";
+    public QueryObject getSpecificRelease(String releaseId) {
+        return new QueryObject("getSpecificRelease", SPECIFIC_RELEASE, Map.of("releaseId", releaseId));
     }
 
     @Override
-    public String getReleaseDependent(String artifactId, String releaseVersion) {
-        return "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
-                "WHERE a.id = '"+artifactId+"' AND d.targetVersion = '"+releaseVersion+"' " +
-                "RETURN r";
+    public QueryObject getReleaseDependent(String artifactId, String releaseVersion) {
+        return new QueryObject("getReleaseDependent", RELEASE_DEPENDENT, Map.of("artifactId", artifactId, "releaseVersion", releaseVersion));
     }
 
     @Override
-    public String getNewerReleases(String releaseId, String artifactId) {
-        return "MATCH (r:Release) " +
-                "WHERE r.id = '"+releaseId+"' " +
-                "WITH r.timestamp as timestamp " +
-                "MATCH (a:Artifact)-[e:relationship_AR]->(r:Release) " +
-                "WHERE a.id = '"+artifactId+"' AND r.timestamp > timestamp " +
-                "RETURN r";
+    public QueryObject getNewerReleases(String releaseId, String artifactId) {
+        return new QueryObject("getNewerReleases", NEWER_RELEASES, Map.of("releaseId", releaseId, "artifactId", artifactId));
     }
 
     @Override
-    public String getReleaseFreshness(String releaseId) {
-        return "MATCH (r1:Release)<-[:relationship_AR]-(:Artifact)-[:relationship_AR]->(r2:Release) " +
-                "WHERE r1.id = '"+releaseId+"' AND r2.timestamp > r1.timestamp " +
-                "WITH r2, r2.timestamp - r1.timestamp AS difference " +
-                "RETURN count(r2) AS numberMissedRelease, max(difference) AS outdatedTimeInMs";
+    public QueryObject getReleaseFreshness(String releaseId) {
+        return new QueryObject("getReleaseFreshness", RELEASE_FRESHNESS, Map.of("releaseId", releaseId));
     }
 
     @Override
-    public String getReleasePopularity1Year(String artifactGa, String releaseVersion) {
+    public QueryObject getReleasesFreshness(Collection<String> releaseIds) {
+        return new QueryObject("getReleasesFreshness", RELEASES_FRESHNESS, Map.of("releaseIds", releaseIds));
+    }
+
+    @Override
+    public QueryObject getReleasePopularity1Year(String artifactGa, String releaseVersion) {
+        return new QueryObject("getReleasePopularity1Year", RELEASE_POPULARITY_1_YEAR,
+                Map.of("artifactId", artifactGa, "releaseVersion", releaseVersion, "oneYearAgoTimestamp", getOneYearAgoTimestamp()));
+    }
+
+    @Override
+    public QueryObject getReleasesPopularity1Year(Collection<String> releaseIds) {
+        List<Map<String, String>> releases = new ArrayList<>();
+        for (String releaseId : releaseIds) {
+            String[] splitedGav = releaseId.split(":");
+            if (splitedGav.length == 3) {
+                releases.add(Map.of("releaseId", releaseId, "artifactId", splitedGav[0] + ":" + splitedGav[1], "version", splitedGav[2]));
+            }
+        }
+        return new QueryObject("getReleasesPopularity1Year", RELEASES_POPULARITY_1_YEAR,
+                Map.of("releases", releases, "oneYearAgoTimestamp", getOneYearAgoTimestamp()));
+    }
+
+    private static long getOneYearAgoTimestamp() {
         LocalDate startDate = Instant.ofEpochMilli(GraphUpdatedChecker.getDatabaseLastReleaseTimestamp())
                 .atZone(ZoneId.systemDefault())
                 .toLocalDate();
         LocalDate oneYearAgo = startDate.minus(1, ChronoUnit.YEARS);
         ZonedDateTime zonedDateTime = oneYearAgo.atStartOfDay(ZoneId.systemDefault());
-        long oneYearAgoTimestampMillis = zonedDateTime.toInstant().toEpochMilli();
-        return "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
-                "WHERE a.id = '"+artifactGa+"' AND d.targetVersion = '"+releaseVersion+"' AND r.timestamp > "+oneYearAgoTimestampMillis+" " +
-                "RETURN count(d)";
+        return zonedDateTime.toInstant().toEpochMilli();
+    }
+
+    @Override
+    public QueryObject getArtifactRhythm(String artifactId) {
+        return new QueryObject("getArtifactRhythm", ARTIFACT_RHYTHM, Map.of("artifactId", artifactId));
+    }
+
+    @Override
+    public QueryObject getArtifactsRhythm(Collection<String> artifactIds) {
+        return new QueryObject("getArtifactsRhythm", ARTIFACTS_RHYTHM, Map.of("artifactIds", artifactIds));
     }
 
     @Override
-    public String getArtifactRhythm(String artifactId) {
-        return "MATCH (a:Artifact) -[e:relationship_AR]-> (r:Release) " +
-                "WHERE a.id = '"+artifactId+"' " +
-                "RETURN r.timestamp AS timestamp";
+    public QueryObject getReleaseDirectCompileDependencies(String artifactId) {
+        return new QueryObject("getReleaseDirectCompileDependencies", RELEASE_DIRECT_COMPILE_DEPENDENCIES, Map.of("releaseId", artifactId));
     }
 
     @Override
-    public String getReleaseDirectCompileDependencies(String artifactId) {
-        return "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
-                "WHERE r.id = '"+artifactId+"' AND (d.scope = 'compile') " +
-                "WITH a,d " +
-                "MATCH (dep:Release {id: a.id+':'+d.targetVersion}) " +
-                "RETURN dep";
+    public QueryObject getReleasesDirectCompileDependencies(Collection<String> releaseIds) {
+        return new QueryObject("getReleasesDirectCompileDependencies", RELEASES_DIRECT_COMPILE_DEPENDENCIES, Map.of("releaseIds", releaseIds));
     }
 
     @Override
-    public String getReleaseDirectCompileDependenciesEdgeAndArtifact(String artifactId) {
-        return "MATCH (r:Release)-[d:dependency]->(a:Artifact) " +
-                "WHERE r.id = '"+artifactId+"' AND (d.scope = 'compile') " +
-                "RETURN a,d";
+    public QueryObject getReleaseDirectCompileDependenciesEdgeAndArtifact(String artifactId) {
+        return new QueryObject("getReleaseDirectCompileDependenciesEdgeAndArtifact", RELEASE_DIRECT_COMPILE_DEPENDENCIES_EDGE_AND_ARTIFACT, Map.of("releaseId", artifactId));
     }
 
     @Override
-    public String getLastReleaseTimestamp(){
-        return "MATCH (r:Release) " +
-                "RETURN MAX(r.timestamp) AS maxTimestamp";
+    public QueryObject getLastReleaseTimestamp(){
+        return new QueryObject("getLastReleaseTimestamp", LAST_RELEASE_TIMESTAMP);
     }
 
     @Override
-    public String getDependencyGraphFromReleaseIdListParameter(){
-        return "MATCH (r:Release)-[d:dependency]->(a:Artifact)-[e:relationship_AR]->(r2:Release) " +
-                "WHERE r.id IN $releaseIdList AND d.scope = 'compile' AND r2.version = d.targetVersion " +
-                "RETURN d,a,e,r2";
+    public QueryObject getDependencyGraphFromReleaseIdList(Set<String> releaseIdList){
+        return new QueryObject("getDependencyGraphFromReleaseIdList", DEPENDENCY_GRAPH_FROM_RELEASE_ID_LIST, Map.of("releaseIdList", releaseIdList));
     }
 }
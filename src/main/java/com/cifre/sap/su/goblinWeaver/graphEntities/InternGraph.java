@@ -54,6 +54,31 @@ public class InternGraph {
         this.graphValues.addAll(graph.getGraphValues());
     }
 
+    /**
+     * Merges the new nodes of the graph by increasing id, so an artifact comes before its releases, until this graph holds maxNodes nodes.
+     * Only the edges between nodes of this graph are merged.
+     * @return true if nodes were left out
+     */
+    public boolean mergeGraph(InternGraph graph, int maxNodes){
+        List<NodeObject> newNodes = graph.getGraphNodes().stream()
+                .filter(node -> !this.graphNodes.contains(node))
+                .sorted(Comparator.comparing(NodeObject::getId).thenComparing(NodeObject::getNeo4jId))
+                .toList();
+        int mergedCount = Math.min(newNodes.size(), Math.max(0, maxNodes - this.graphNodes.size()));
+        this.graphNodes.addAll(newNodes.subList(0, mergedCount));
+        Set<String> nodeIds = new HashSet<>();
+        for (NodeObject node : graphNodes) {
+            nodeIds.add(node.getNeo4jId());
+        }
+        for (EdgeObject edge : graph.getGraphEdges()) {
+            if (nodeIds.contains(edge.getSourceId()) && nodeIds.contains(edge.getTargetId())) {
+                this.graphEdges.add(edge);
+            }
+        }
+        this.graphValues.addAll(graph.getGraphValues());
+        return mergedCount < newNodes.size();
+    }
+
     public void clearValueNodes(){
         this.graphValues = new HashSet<>();
     }
@@ -2,8 +2,11 @@ package com.cifre.sap.su.goblinWeaver.graphEntities.nodes;
 
 import com.cifre.sap.su.goblinWeaver.graphEntities.GraphObject;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -13,6 +16,8 @@ public abstract class NodeObject implements GraphObject {
     private final String id;
     private final NodeType type;
     private final Set<AddedValue> addedValues = new HashSet<>();
+    // Added values still computed in background when the weaving deadline was reached
+    private final Set<AddedValueEnum> pendingAddedValues = EnumSet.noneOf(AddedValueEnum.class);
 
     public NodeObject(String neo4jId, String id, NodeType type) {
         this.neo4jId = neo4jId;
@@ -36,6 +41,10 @@ public abstract class NodeObject implements GraphObject {
         this.addedValues.add(addedValue);
     }
 
+    public void addPendingAddedValue(AddedValueEnum addedValueEnum){
+        this.pendingAddedValues.add(addedValueEnum);
+    }
+
     public JSONObject getJsonObject() {
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("id",id);
@@ -43,6 +52,11 @@ public abstract class NodeObject implements GraphObject {
         for(AddedValue addedValue : addedValues){
             jsonObject.putAll(addedValue.getValueMap());
         }
+        if(!pendingAddedValues.isEmpty()){
+            JSONArray pendingJson = new JSONArray();
+            pendingAddedValues.forEach(pendingAddedValue -> pendingJson.add(pendingAddedValue.toString()));
+            jsonObject.put("pendingAddedValues", pendingJson);
+        }
         return jsonObject;
     }
 
@@ -6,5 +6,6 @@ public class ConstantProperties {
     public static final String dataFolderPath = "goblinWeaver_data";
     public static final String osvDataFolderPath = dataFolderPath+"/osvData";
     public static final String databaseStatusFile = dataFolderPath+"/databaseStatus.txt";
+    public static final String internedEntriesFile = dataFolderPath+"/internedEntries.txt";
 
 }
@@ -0,0 +1,173 @@
+package com.cifre.sap.su.goblinWeaver.utils;
+
+import io.micrometer.core.instrument.Metrics;
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * HTTP client shared by all requests to Maven Central: one connection pool kept alive, HTTP/2 when the server supports it.
+ * Requests are asynchronous, limited by the dispatcher concurrency and by a global rate of requests per second.
+ * Responses 429 and 5xx and connection failures are retried with an exponential backoff, or after the Retry-After delay.
+ * The latency of each request sent is recorded per host.
+ */
+public class MavenCentralClient {
+    private static MavenCentralClient instance;
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final long permitIntervalNanos;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "maven-central-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long nextPermitNanos;
+
+    private MavenCentralClient() {
+        this(getRepositoryUrl(), Integer.getInteger("httpMaxRequestsPerSecond", 200),
+                Integer.getInteger("httpMaxRetries", 3), Long.getLong("httpRetryBackoffMs", 500L));
+    }
+
+    /**
+     * @param maxRequestsPerSecond 0 or less for no rate limit
+     */
+    MavenCentralClient(String url, int maxRequestsPerSecond, int maxRetries, long retryBackoffMs) {
+        baseUrl = url.endsWith("/") ? url : url + "/";
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        permitIntervalNanos = maxRequestsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond : 0;
+        Dispatcher dispatcher = new Dispatcher();
+        int maxConcurrentRequests = Integer.getInteger("httpMaxConcurrentRequests", 64);
+        dispatcher.setMaxRequests(maxConcurrentRequests);
+        dispatcher.setMaxRequestsPerHost(maxConcurrentRequests);
+        client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(Integer.getInteger("httpMaxIdleConnections", 32), Long.getLong("httpKeepAliveMs", 300000L), TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(Long.getLong("httpConnectTimeoutMs", 60000L), TimeUnit.MILLISECONDS)
+                .writeTimeout(Long.getLong("httpWriteTimeoutMs", 120000L), TimeUnit.MILLISECONDS)
+                .readTimeout(Long.getLong("httpReadTimeoutMs", 60000L), TimeUnit.MILLISECONDS)
+                .addNetworkInterceptor(MavenCentralClient::recordLatency)
+                .build();
+    }
+
+    public static MavenCentralClient getInstance() {
+        if (instance == null) {
+            synchronized (MavenCentralClient.class) {
+                if (instance == null) {
+                    instance = new MavenCentralClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the repository root URL set by mavenCentralUrl, ending with a slash, without creating the client
+     */
+    public static String getRepositoryUrl() {
+        String url = System.getProperty("mavenCentralUrl", "https://repo1.maven.org/maven2/");
+        return url.endsWith("/") ? url : url + "/";
+    }
+
+    /**
+     * @return the repository root URL, ending with a slash
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * @return the body of a successful response, null if the response is not successful after the retries
+     */
+    public CompletableFuture<String> getAsync(String url) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        send(new Request.Builder().url(url).build(), 0, result);
+        return result;
+    }
+
+    private void send(Request request, int attempt, CompletableFuture<String> result) {
+        long permitDelayNanos = reservePermit();
+        Runnable enqueue = () -> client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                if (attempt < maxRetries) {
+                    retry(request, attempt, result, getBackoffMs(attempt));
+                } else {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                try (response) {
+                    if (response.isSuccessful()) {
+                        result.complete(response.body() != null ? response.body().string() : null);
+                    } else if ((response.code() == 429 || response.code() >= 500) && attempt < maxRetries) {
+                        retry(request, attempt, result, Math.max(getBackoffMs(attempt), getRetryAfterMs(response)));
+                    } else {
+                        result.complete(null);
+                    }
+                } catch (IOException e) {
+                    onFailure(call, e);
+                }
+            }
+        });
+        if (permitDelayNanos == 0) {
+            enqueue.run();
+        } else {
+            scheduler.schedule(enqueue, permitDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void retry(Request request, int attempt, CompletableFuture<String> result, long delayMs) {
+        Metrics.counter("weaver.http.client.retries", "host", request.url().host()).increment();
+        scheduler.schedule(() -> send(request, attempt + 1, result), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reserves the next slot of the rate limit.
+     * @return the time to wait before sending the request
+     */
+    private synchronized long reservePermit() {
+        if (permitIntervalNanos == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long permitNanos = Math.max(now, nextPermitNanos);
+        nextPermitNanos = permitNanos + permitIntervalNanos;
+        return permitNanos - now;
+    }
+
+    private long getBackoffMs(int attempt) {
+        return retryBackoffMs << attempt;
+    }
+
+    private static long getRetryAfterMs(Response response) {
+        String retryAfter = response.header("Retry-After");
+        try {
+            return retryAfter != null ? TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())) : 0;
+        } catch (NumberFormatException e) {
+            // HTTP dates are not supported, the backoff applies
+            return 0;
+        }
+    }
+
+    private static Response recordLatency(Interceptor.Chain chain) throws IOException {
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try {
+            Response response = chain.proceed(chain.request());
+            status = Integer.toString(response.code());
+            return response;
+        } finally {
+            Metrics.timer("weaver.http.client.requests", "host", chain.request().url().host(), "status", status)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -7,7 +7,7 @@ import java.io.FileReader;
 import java.io.IOException;
 
 public class OsvDataSingleton {
-    private static JSONObject dataJsonObject;
+    private static volatile JSONObject dataJsonObject;
 
     private OsvDataSingleton() {
         // private constructor to prevent instantiation
@@ -24,4 +24,13 @@ public class OsvDataSingleton {
         }
         return dataJsonObject;
     }
+
+    /**
+     * Loads the aggregated data file again, after it has been regenerated.
+     */
+    public static synchronized JSONObject reload() throws IOException, ParseException {
+        JSONParser parser = new JSONParser();
+        dataJsonObject = (JSONObject) parser.parse(new FileReader(OsvProceeding.AGGREGATED_DATA_FILE));
+        return dataJsonObject;
+    }
 }
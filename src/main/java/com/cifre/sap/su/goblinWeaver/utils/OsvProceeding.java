@@ -1,7 +1,11 @@
 package com.cifre.sap.su.goblinWeaver.utils;
 
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
 import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
+import com.cifre.sap.su.goblinWeaver.weaver.AddedValueCache;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.Cve;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -10,9 +14,7 @@ import org.json.simple.parser.ParseException;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -36,15 +38,87 @@ public class OsvProceeding {
         if(noUpdateFlag && dataFileExist){
             return;
         }
+        JSONObject previousData = readPreviousData();
         downloadOsvDatabase();
         createAggregateDataFile();
         try {
-            OsvDataSingleton.getDataJsonObject();
-            GraphDatabaseSingleton.getInstance().removeAddedValuesOnGraph(Set.of(AddedValueEnum.CVE, AddedValueEnum.CVE_AGGREGATED));
+            JSONObject data = OsvDataSingleton.reload();
+            if (previousData == null) {
+                GraphDatabaseSingleton.getInstance().removeAddedValuesOnGraph(Set.of(AddedValueEnum.CVE, AddedValueEnum.CVE_AGGREGATED));
+            } else {
+                updateChangedReleases(getChangedReleases(previousData, data));
+            }
         } catch (IOException | ParseException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * @return the aggregated data of the previous update, null if there is none
+     */
+    private static JSONObject readPreviousData() {
+        File dataFile = new File(AGGREGATED_DATA_FILE);
+        if (!dataFile.exists()) {
+            return null;
+        }
+        try (FileReader reader = new FileReader(dataFile)) {
+            return (JSONObject) new JSONParser().parse(reader);
+        } catch (IOException | ParseException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return the releases whose set of vulnerabilities differs between the two aggregated data
+     */
+    private static Set<String> getChangedReleases(JSONObject previousData, JSONObject data) {
+        Set<String> changedReleases = new HashSet<>();
+        Set<Object> gavs = new HashSet<>(previousData.keySet());
+        gavs.addAll(data.keySet());
+        for (Object gav : gavs) {
+            if (!getVulnerabilities(previousData, gav).equals(getVulnerabilities(data, gav))) {
+                changedReleases.add(gav.toString());
+            }
+        }
+        return changedReleases;
+    }
+
+    private static Set<Object> getVulnerabilities(JSONObject data, Object gav) {
+        JSONArray vulnerabilities = (JSONArray) data.get(gav);
+        return vulnerabilities == null ? Set.of() : new HashSet<>(vulnerabilities);
+    }
+
+    /**
+     * Stored CVE values of the changed releases are recomputed, the stored aggregated values depending on them are removed.
+     * The removal walks up the compile dependencies level by level, through the dependents without stored value too:
+     * a value lost on write must not hide the stale values above it. The walk only stops on releases already visited.
+     * Removed values are computed again on demand.
+     */
+    private static void updateChangedReleases(Set<String> changedReleases) {
+        System.out.println("Update CVE values of " + changedReleases.size() + " releases");
+        GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
+        Set<String> storedCveReleases = gdb.removeReleasesAddedValue(changedReleases, AddedValueEnum.CVE);
+        List<AddedValue<?>> cveValues = new ArrayList<>();
+        Cve.computeAll(storedCveReleases).forEach((releaseId, value) -> {
+            Cve cve = new Cve(releaseId);
+            cve.setComputedValue(value);
+            cveValues.add(cve);
+        });
+        gdb.addAddedValues(cveValues);
+        AddedValueCache.getInstance().put(cveValues);
+        gdb.removeReleasesAddedValue(changedReleases, AddedValueEnum.CVE_AGGREGATED);
+        Set<String> visitedReleases = new HashSet<>(changedReleases);
+        Set<String> frontier = changedReleases;
+        while (!frontier.isEmpty()) {
+            Set<String> dependents = new HashSet<>(gdb.removeDependentsAddedValue(frontier, AddedValueEnum.CVE_AGGREGATED));
+            dependents.removeAll(visitedReleases);
+            visitedReleases.addAll(dependents);
+            frontier = dependents;
+        }
+        System.out.println("CVE_AGGREGATED values removed from " + visitedReleases.size() + " releases and their dependents");
+    }
+
     private static void createAggregateDataFile(){
         Map<String, JSONArray> aggregatedData = new HashMap<>();
         try{
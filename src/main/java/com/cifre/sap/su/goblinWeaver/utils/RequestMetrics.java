@@ -0,0 +1,64 @@
+package com.cifre.sap.su.goblinWeaver.utils;
+
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Endpoint of the API request a thread works for, used to tag metrics.
+ * It is set on the request thread and propagated to the tasks submitted for the request with {@link #propagate}.
+ */
+public class RequestMetrics {
+    private static final String NO_ENDPOINT = "none";
+    private static final ThreadLocal<String> currentEndpoint = new ThreadLocal<>();
+
+    private RequestMetrics() {
+        // private constructor to prevent instantiation
+    }
+
+    public static void setEndpoint(String endpoint) {
+        currentEndpoint.set(endpoint);
+    }
+
+    public static void clearEndpoint() {
+        currentEndpoint.remove();
+    }
+
+    public static String getEndpoint() {
+        String endpoint = currentEndpoint.get();
+        return endpoint != null ? endpoint : NO_ENDPOINT;
+    }
+
+    public static Runnable propagate(Runnable task) {
+        String endpoint = currentEndpoint.get();
+        return () -> {
+            String previousEndpoint = currentEndpoint.get();
+            currentEndpoint.set(endpoint);
+            try {
+                task.run();
+            } finally {
+                currentEndpoint.set(previousEndpoint);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        String endpoint = currentEndpoint.get();
+        return () -> {
+            String previousEndpoint = currentEndpoint.get();
+            currentEndpoint.set(endpoint);
+            try {
+                return task.get();
+            } finally {
+                currentEndpoint.set(previousEndpoint);
+            }
+        };
+    }
+
+    /**
+     * Counts a query sent to the graph database, by query name and endpoint.
+     */
+    public static void countQuery(String queryName) {
+        Metrics.counter("weaver.neo4j.queries", "query", queryName, "endpoint", getEndpoint()).increment();
+    }
+}
@@ -0,0 +1,174 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.InternedSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache of added values in front of the graph database, keyed by node id and added value type.
+ * Values are kept as stored on the graph and weighted by their length, eviction is Caffeine's W-TinyLFU.
+ * Hit, miss and eviction statistics are published as "addedValues" cache metrics.
+ */
+public class AddedValueCache {
+    private static AddedValueCache instance;
+    // Approximate size in bytes of an entry without its strings
+    private static final int ENTRY_OVERHEAD = 64;
+    private final Cache<Key, String> cache;
+    private final StoredValueLookup storedValueLookup;
+
+    /**
+     * Lookup of the values stored on the graph, the graph database one outside the tests.
+     */
+    interface StoredValueLookup {
+        Map<String, Map<AddedValueEnum, String>> getNodeAddedValues(List<String> nodeIds, Set<AddedValueEnum> addedValues, NodeType nodeType);
+    }
+
+    private static class Key {
+        private final String nodeId;
+        private final AddedValueEnum addedValueEnum;
+
+        private Key(String nodeId, AddedValueEnum addedValueEnum) {
+            this.nodeId = nodeId;
+            this.addedValueEnum = addedValueEnum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return nodeId.equals(key.nodeId) && addedValueEnum == key.addedValueEnum;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * nodeId.hashCode() + addedValueEnum.hashCode();
+        }
+    }
+
+    private AddedValueCache() {
+        this(Long.getLong("addedValueCacheMaxBytes", 256L * 1024 * 1024),
+                (nodeIds, addedValues, nodeType) -> GraphDatabaseSingleton.getInstance().getNodeAddedValues(nodeIds, addedValues, nodeType));
+    }
+
+    AddedValueCache(long maxBytes, StoredValueLookup storedValueLookup) {
+        this.storedValueLookup = storedValueLookup;
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, String value) -> 2 * (key.nodeId.length() + value.length()) + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, "addedValues");
+    }
+
+    public static AddedValueCache getInstance() {
+        if (instance == null) {
+            synchronized (AddedValueCache.class) {
+                if (instance == null) {
+                    instance = new AddedValueCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Same contract as the graph database lookup: cached values are returned directly,
+     * nodes with at least one missing value are looked up on the graph and cached.
+     */
+    public Map<String, Map<AddedValueEnum, String>> getNodeAddedValues(List<String> nodeIds, Set<AddedValueEnum> addedValues, NodeType nodeType) {
+        Set<AddedValueEnum> nodeTypeAddedValues = addedValues.stream().filter(a -> a.getTargetNodeType().equals(nodeType)).collect(Collectors.toSet());
+        Map<String, Map<AddedValueEnum, String>> nodeAddedValues = new HashMap<>();
+        List<String> missingNodeIds = new ArrayList<>();
+        Map<AddedValueEnum, Integer> cacheHits = new EnumMap<>(AddedValueEnum.class);
+        Map<AddedValueEnum, Integer> graphHits = new EnumMap<>(AddedValueEnum.class);
+        for (String nodeId : nodeIds) {
+            boolean missing = false;
+            for (AddedValueEnum addedValueEnum : nodeTypeAddedValues) {
+                String value = cache.getIfPresent(new Key(nodeId, addedValueEnum));
+                if (value != null) {
+                    nodeAddedValues.computeIfAbsent(nodeId, k -> new EnumMap<>(AddedValueEnum.class)).put(addedValueEnum, value);
+                    cacheHits.merge(addedValueEnum, 1, Integer::sum);
+                } else {
+                    missing = true;
+                }
+            }
+            if (missing) {
+                missingNodeIds.add(nodeId);
+            }
+        }
+        if (!missingNodeIds.isEmpty()) {
+            Map<String, Map<AddedValueEnum, String>> storedAddedValues = storedValueLookup.getNodeAddedValues(missingNodeIds, nodeTypeAddedValues, nodeType);
+            for (Map.Entry<String, Map<AddedValueEnum, String>> entry : storedAddedValues.entrySet()) {
+                for (Map.Entry<AddedValueEnum, String> value : entry.getValue().entrySet()) {
+                    // Interned values of a lost dictionary can't be read, they are computed again
+                    if (InternedSet.isStale(value.getValue())) {
+                        continue;
+                    }
+                    cache.put(new Key(entry.getKey(), value.getKey()), value.getValue());
+                    graphHits.merge(value.getKey(), 1, Integer::sum);
+                    nodeAddedValues.computeIfAbsent(entry.getKey(), k -> new EnumMap<>(AddedValueEnum.class)).put(value.getKey(), value.getValue());
+                }
+            }
+        }
+        for (AddedValueEnum addedValueEnum : nodeTypeAddedValues) {
+            int cacheHitCount = cacheHits.getOrDefault(addedValueEnum, 0);
+            int graphHitCount = graphHits.getOrDefault(addedValueEnum, 0);
+            countLookup(addedValueEnum, "cache", cacheHitCount);
+            countLookup(addedValueEnum, "graph", graphHitCount);
+            countLookup(addedValueEnum, "missing", nodeIds.size() - cacheHitCount - graphHitCount);
+        }
+        return nodeAddedValues;
+    }
+
+    /**
+     * Counts the values found in the cache, found on the graph or missing (to be computed), per added value and endpoint.
+     */
+    private static void countLookup(AddedValueEnum addedValueEnum, String result, int count) {
+        Metrics.counter("weaver.addedvalue.lookup", "addedValue", addedValueEnum.toString(), "result", result, "endpoint", RequestMetrics.getEndpoint()).increment(count);
+    }
+
+    public void put(List<AddedValue<?>> computedAddedValues) {
+        for (AddedValue<?> addedValue : computedAddedValues) {
+            put(addedValue.getNodeId(), addedValue.getAddedValueEnum(), toStoredString(addedValue));
+        }
+    }
+
+    /**
+     * @param value the value as written on the graph
+     */
+    public void put(String nodeId, AddedValueEnum addedValueEnum, String value) {
+        // Escaped quotes are removed when values are read from the graph
+        cache.put(new Key(nodeId, addedValueEnum), value.replace("\\", ""));
+    }
+
+    public void invalidate(Set<AddedValueEnum> addedValuesType) {
+        cache.asMap().keySet().removeIf(key -> addedValuesType.contains(key.addedValueEnum));
+    }
+
+    public void invalidate(Collection<String> nodeIds, AddedValueEnum addedValueEnum) {
+        cache.invalidateAll(nodeIds.stream().map(nodeId -> new Key(nodeId, addedValueEnum)).toList());
+    }
+
+    /**
+     * @return the total weight of the cached entries, once pending evictions are done
+     */
+    long getWeightedSize() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+    }
+
+    private static <T> String toStoredString(AddedValue<T> addedValue) {
+        return addedValue.valueToString(addedValue.getValue());
+    }
+}
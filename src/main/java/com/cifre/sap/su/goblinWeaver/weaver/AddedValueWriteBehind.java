@@ -0,0 +1,183 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for computed added values: requests hand their values over and return, values are written
+ * to the graph database in bulk when the buffer is large enough or the oldest value waited long enough.
+ * A value computed again by another request before being written replaces the pending one, so it is written once.
+ * Enqueuing blocks when too many values are pending, and the buffer is drained when the JVM shuts down.
+ * An enqueue interrupted while blocked still hands its values over, above the pending bound.
+ */
+public class AddedValueWriteBehind {
+    private static AddedValueWriteBehind instance;
+    private final int flushSize = Integer.getInteger("writeBehindFlushSize", 10000);
+    private final long flushIntervalMs = Long.getLong("writeBehindFlushIntervalMs", 1000L);
+    private final int maxPending = Integer.getInteger("writeBehindMaxPending", 500000);
+    // Insertion ordered, the first entry is the oldest pending value
+    private final LinkedHashMap<String, PendingValue> pendingValues = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flushExecutor;
+
+    private static class PendingValue {
+        private final AddedValue<?> addedValue;
+        private final long enqueuedAt;
+
+        private PendingValue(AddedValue<?> addedValue, long enqueuedAt) {
+            this.addedValue = addedValue;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private AddedValueWriteBehind() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "added-value-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushDue, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "added-value-write-behind-drain"));
+        Metrics.gauge("weaver.writebehind.pending", this, AddedValueWriteBehind::getPendingCount);
+        Metrics.gauge("weaver.writebehind.lag.seconds", this, AddedValueWriteBehind::getLagSeconds);
+    }
+
+    public static AddedValueWriteBehind getInstance() {
+        if (instance == null) {
+            synchronized (AddedValueWriteBehind.class) {
+                if (instance == null) {
+                    instance = new AddedValueWriteBehind();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void enqueue(List<AddedValue<?>> computedAddedValues) {
+        if (computedAddedValues.isEmpty()) {
+            return;
+        }
+        boolean flushNeeded;
+        boolean interrupted = false;
+        synchronized (pendingValues) {
+            while (pendingValues.size() >= maxPending && !interrupted) {
+                try {
+                    pendingValues.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            long now = System.nanoTime();
+            for (AddedValue<?> addedValue : computedAddedValues) {
+                String key = addedValue.getNodeId() + ":" + addedValue.getAddedValueEnum();
+                PendingValue pendingValue = pendingValues.get(key);
+                pendingValues.put(key, new PendingValue(addedValue, pendingValue != null ? pendingValue.enqueuedAt : now));
+            }
+            flushNeeded = pendingValues.size() >= flushSize;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            Metrics.counter("weaver.writebehind.overflow").increment(computedAddedValues.size());
+            System.out.println("Interrupted while waiting for the write-behind buffer, " + computedAddedValues.size() + " added values enqueued above the pending bound");
+        }
+        if (flushNeeded) {
+            flushExecutor.execute(this::flushDue);
+        }
+    }
+
+    /**
+     * Drops the pending values of removed added value types, so they are not written back after their removal.
+     * Waits for the batch being written, it may hold values of these types taken before the call.
+     */
+    public void discard(Set<AddedValueEnum> addedValuesType) {
+        synchronized (flushLock) {
+            synchronized (pendingValues) {
+                pendingValues.values().removeIf(pendingValue -> addedValuesType.contains(pendingValue.addedValue.getAddedValueEnum()));
+                pendingValues.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes full batches, and the remaining values once the oldest one is older than the flush interval.
+     */
+    private void flushDue() {
+        try {
+            while (true) {
+                synchronized (pendingValues) {
+                    if (pendingValues.isEmpty() || (pendingValues.size() < flushSize && getLagMs() < flushIntervalMs)) {
+                        return;
+                    }
+                }
+                writeBatch();
+            }
+        } catch (Exception e) {
+            // Keeps the scheduled flush alive, the batch is lost but will be computed again when requested
+            System.out.println("Fail to write pending added values:\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every pending value, called on shutdown.
+     */
+    public void drain() {
+        int drained = 0;
+        while (true) {
+            int written = writeBatch();
+            if (written == 0) {
+                break;
+            }
+            drained += written;
+        }
+        if (drained > 0) {
+            System.out.println("Added values write-behind drained: " + drained + " values written");
+        }
+    }
+
+    private int writeBatch() {
+        synchronized (flushLock) {
+            List<AddedValue<?>> batch = new ArrayList<>();
+            synchronized (pendingValues) {
+                Iterator<PendingValue> iterator = pendingValues.values().iterator();
+                while (iterator.hasNext() && batch.size() < flushSize) {
+                    batch.add(iterator.next().addedValue);
+                    iterator.remove();
+                }
+                pendingValues.notifyAll();
+            }
+            if (!batch.isEmpty()) {
+                GraphDatabaseSingleton.getInstance().addAddedValues(batch);
+            }
+            return batch.size();
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pendingValues) {
+            return pendingValues.size();
+        }
+    }
+
+    /**
+     * @return the time the oldest pending value has been waiting to be written
+     */
+    public double getLagSeconds() {
+        return getLagMs() / 1000.0;
+    }
+
+    private long getLagMs() {
+        synchronized (pendingValues) {
+            if (pendingValues.isEmpty()) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingValues.values().iterator().next().enqueuedAt);
+        }
+    }
+}
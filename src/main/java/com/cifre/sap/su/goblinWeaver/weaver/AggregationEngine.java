@@ -0,0 +1,351 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueCalculator;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AggregateValue;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Computes aggregated added values for a batch of releases without walking the dependencies node by node:
+ * 1. the compile dependencies subgraph is fetched level by level, one query per chunk of releases,
+ *    releases with an aggregated value already stored are not expanded;
+ * 2. stored aggregated and base values are loaded in bulk, missing base values are computed in batch;
+ * 3. dependency cycles are condensed with Tarjan's strongly connected components;
+ * 4. components are aggregated bottom-up by level, Tarjan emits them in reverse topological order,
+ *    the independent components of a level are aggregated in parallel on a fork-join pool;
+ * 5. new aggregated and base values are cached and handed to the write-behind buffer together.
+ * The releases of a cycle share the same aggregated value.
+ * Dependencies and values are memoized in an {@link AggregationMemo} shared by the whole weaving.
+ * The releases of each level are registered in {@link SingleFlight} before being aggregated: concurrent weavings
+ * expanding the same intermediate releases aggregate them once, the others wait for the value.
+ */
+public class AggregationEngine {
+    private static final int FETCH_CHUNK_SIZE = Integer.getInteger("aggregationFetchChunkSize", 5000);
+    private static final int PARALLEL_LEVEL_SIZE = Integer.getInteger("aggregationParallelLevelSize", 64);
+    private static final ForkJoinPool aggregationPool = new ForkJoinPool(Integer.getInteger("aggregationParallelism", Runtime.getRuntime().availableProcessors()));
+
+    private AggregationEngine() {
+        // private constructor to prevent instantiation
+    }
+
+    public static <T> Map<String, T> computeAll(AddedValueEnum addedValueEnum, Collection<String> nodeIds) {
+        return computeAll(addedValueEnum, nodeIds, new AggregationMemo());
+    }
+
+    /**
+     * @param memo dependencies and values shared with the other computations of the same weaving
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Map<String, T> computeAll(AddedValueEnum addedValueEnum, Collection<String> nodeIds, AggregationMemo memo) {
+        if (nodeIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        AggregateValue<T> aggregateValue = (AggregateValue<T>) addedValueEnum.newInstance(nodeIds.iterator().next());
+        AddedValueEnum baseAddedValue = addedValueEnum.getBaseAddedValue();
+        Map<String, T> memoAggregatedValues = memo.getValues(addedValueEnum);
+        Map<String, T> memoBaseValues = memo.getValues(baseAddedValue);
+        Map<String, T> aggregatedValues = new ConcurrentHashMap<>();
+        Map<String, T> baseValues = new HashMap<>();
+        // Releases without known aggregated value and their direct compile dependencies
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        Set<String> frontier = new LinkedHashSet<>(nodeIds);
+        while (!frontier.isEmpty()) {
+            List<String> unknownReleases = new ArrayList<>();
+            for (String nodeId : frontier) {
+                T memoValue = memoAggregatedValues.get(nodeId);
+                if (memoValue != null) {
+                    aggregatedValues.put(nodeId, memoValue);
+                } else {
+                    unknownReleases.add(nodeId);
+                }
+            }
+            Map<String, Map<AddedValueEnum, String>> storedValues = AddedValueCache.getInstance()
+                    .getNodeAddedValues(unknownReleases, EnumSet.of(addedValueEnum, baseAddedValue), NodeType.RELEASE);
+            List<String> releasesToExpand = new ArrayList<>();
+            for (String nodeId : unknownReleases) {
+                Map<AddedValueEnum, String> nodeValues = storedValues.getOrDefault(nodeId, Map.of());
+                if (nodeValues.containsKey(addedValueEnum)) {
+                    aggregatedValues.put(nodeId, aggregateValue.stringToValue(nodeValues.get(addedValueEnum)));
+                } else {
+                    if (memoBaseValues.containsKey(nodeId)) {
+                        baseValues.put(nodeId, memoBaseValues.get(nodeId));
+                    } else if (nodeValues.containsKey(baseAddedValue)) {
+                        baseValues.put(nodeId, aggregateValue.stringToValue(nodeValues.get(baseAddedValue)));
+                    }
+                    releasesToExpand.add(nodeId);
+                }
+            }
+            Map<String, List<String>> levelDependencies = fetchDependencies(releasesToExpand, memo);
+            Set<String> nextFrontier = new LinkedHashSet<>();
+            for (String nodeId : releasesToExpand) {
+                List<String> nodeDependencies = levelDependencies.get(nodeId);
+                dependencies.put(nodeId, nodeDependencies);
+                for (String dependency : nodeDependencies) {
+                    if (!aggregatedValues.containsKey(dependency) && !dependencies.containsKey(dependency) && !frontier.contains(dependency)) {
+                        nextFrontier.add(dependency);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        List<String> missingBaseNodeIds = dependencies.keySet().stream().filter(nodeId -> !baseValues.containsKey(nodeId)).toList();
+        Map<String, T> computedBaseValues = computeBaseValues(aggregateValue, baseAddedValue, missingBaseNodeIds);
+        baseValues.putAll(computedBaseValues);
+        putAll(memoBaseValues, computedBaseValues);
+
+        aggregate(aggregateValue, dependencies, baseValues, aggregatedValues, addedValueEnum);
+        List<AddedValue<?>> newValueList = new ArrayList<>();
+        for (String release : dependencies.keySet()) {
+            newValueList.add(newComputedValue(addedValueEnum, release, aggregatedValues.get(release)));
+        }
+        putAll(memoAggregatedValues, aggregatedValues);
+        for (Map.Entry<String, T> computedBaseValue : computedBaseValues.entrySet()) {
+            newValueList.add(newComputedValue(baseAddedValue, computedBaseValue.getKey(), computedBaseValue.getValue()));
+        }
+        AddedValueCache.getInstance().put(newValueList);
+        AddedValueWriteBehind.getInstance().enqueue(newValueList);
+
+        Map<String, T> values = new HashMap<>();
+        for (String nodeId : nodeIds) {
+            values.put(nodeId, aggregatedValues.getOrDefault(nodeId, aggregateValue.getZeroValue()));
+        }
+        return values;
+    }
+
+    static <T> void aggregate(AggregateValue<T> aggregateValue, Map<String, List<String>> dependencies, Map<String, T> baseValues, Map<String, T> aggregatedValues) {
+        aggregate(aggregateValue, dependencies, baseValues, aggregatedValues, null);
+    }
+
+    /**
+     * Aggregates the releases bottom-up, component by component: each release of a component gets the base values
+     * of the component merged with the aggregated values of the dependencies out of it.
+     * @param dependencies direct dependencies of the releases to aggregate
+     * @param aggregatedValues aggregated values of the dependencies that are not to be aggregated, completed with the new ones
+     * @param sharedAs type under which the releases of each level are registered in {@link SingleFlight}, null to aggregate them all here
+     */
+    static <T> void aggregate(AggregateValue<T> aggregateValue, Map<String, List<String>> dependencies, Map<String, T> baseValues,
+                              Map<String, T> aggregatedValues, AddedValueEnum sharedAs) {
+        List<String> releases = new ArrayList<>(dependencies.keySet());
+        // Components of a level only depend on lower levels, each level is aggregated in parallel
+        for (List<Set<String>> level : getLevels(getComponentsBottomUp(releases, dependencies), releases, dependencies)) {
+            if (sharedAs == null) {
+                aggregateComponents(aggregateValue, level, dependencies, baseValues, aggregatedValues);
+                continue;
+            }
+            Map<String, Set<String>> releaseComponents = new HashMap<>();
+            for (Set<String> componentReleases : level) {
+                componentReleases.forEach(release -> releaseComponents.put(release, componentReleases));
+            }
+            // Releases of the level in flight in another weaving are awaited, the free ones are aggregated here
+            Map<String, T> levelValues = SingleFlight.executeAll(new ArrayList<>(releaseComponents.keySet()), sharedAs, levelReleases -> {
+                Set<Set<String>> components = Collections.newSetFromMap(new IdentityHashMap<>());
+                levelReleases.forEach(release -> components.add(releaseComponents.get(release)));
+                aggregateComponents(aggregateValue, new ArrayList<>(components), dependencies, baseValues, aggregatedValues);
+                Map<String, T> values = new HashMap<>();
+                levelReleases.forEach(release -> values.put(release, aggregatedValues.get(release)));
+                return values;
+            });
+            putAll(aggregatedValues, levelValues);
+            // An awaited computation without value for a release, it is aggregated here
+            List<Set<String>> missingComponents = level.stream()
+                    .filter(componentReleases -> componentReleases.stream().anyMatch(release -> !aggregatedValues.containsKey(release)))
+                    .toList();
+            aggregateComponents(aggregateValue, missingComponents, dependencies, baseValues, aggregatedValues);
+        }
+    }
+
+    private static <T> void aggregateComponents(AggregateValue<T> aggregateValue, List<Set<String>> components, Map<String, List<String>> dependencies,
+                                                Map<String, T> baseValues, Map<String, T> aggregatedValues) {
+        Consumer<Set<String>> aggregateComponent = componentReleases -> {
+            T value = aggregateValue.getZeroValue();
+            for (String release : componentReleases) {
+                value = aggregateValue.mergeValue(value, baseValues.getOrDefault(release, aggregateValue.getZeroValue()));
+                for (String dependency : dependencies.get(release)) {
+                    if (!componentReleases.contains(dependency)) {
+                        value = aggregateValue.mergeValue(value, aggregatedValues.getOrDefault(dependency, aggregateValue.getZeroValue()));
+                    }
+                }
+            }
+            for (String release : componentReleases) {
+                aggregatedValues.put(release, value);
+            }
+        };
+        if (components.size() < PARALLEL_LEVEL_SIZE) {
+            components.forEach(aggregateComponent);
+        } else {
+            aggregationPool.submit(() -> components.parallelStream().forEach(aggregateComponent)).join();
+        }
+    }
+
+    /**
+     * @return the direct compile dependencies of the releases, the ones unknown to the memo are fetched one query per chunk of releases
+     */
+    private static Map<String, List<String>> fetchDependencies(List<String> releaseIds, AggregationMemo memo) {
+        Map<String, List<String>> memoDependencies = memo.getDependencies();
+        List<String> unknownReleaseIds = releaseIds.stream().filter(releaseId -> !memoDependencies.containsKey(releaseId)).toList();
+        Map<String, List<String>> dependencies = new HashMap<>();
+        GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
+        for (int i = 0; i < unknownReleaseIds.size(); i += FETCH_CHUNK_SIZE) {
+            List<String> chunk = unknownReleaseIds.subList(i, Math.min(i + FETCH_CHUNK_SIZE, unknownReleaseIds.size()));
+            for (Map<String, Object> row : gdb.executeRowQuery(gdb.getQueryDictionary().getReleasesDirectCompileDependencies(chunk))) {
+                dependencies.computeIfAbsent((String) row.get("releaseId"), k -> new ArrayList<>()).add((String) row.get("dependencyId"));
+            }
+        }
+        for (String releaseId : unknownReleaseIds) {
+            memoDependencies.put(releaseId, dependencies.getOrDefault(releaseId, List.of()));
+        }
+        for (String releaseId : releaseIds) {
+            dependencies.put(releaseId, memoDependencies.get(releaseId));
+        }
+        return dependencies;
+    }
+
+    private static <T> void putAll(Map<String, T> memoValues, Map<String, T> values) {
+        values.forEach((nodeId, value) -> {
+            if (value != null) {
+                memoValues.put(nodeId, value);
+            }
+        });
+    }
+
+    /**
+     * Groups the components by level: a component is one level above the highest component it depends on.
+     * @param components in bottom-up order
+     */
+    private static List<List<Set<String>>> getLevels(List<int[]> components, List<String> releases, Map<String, List<String>> dependencies) {
+        Map<String, Integer> releaseComponents = new HashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            for (int release : components.get(i)) {
+                releaseComponents.put(releases.get(release), i);
+            }
+        }
+        List<List<Set<String>>> levels = new ArrayList<>();
+        int[] componentLevels = new int[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            Set<String> componentReleases = new HashSet<>();
+            int level = 0;
+            for (int release : components.get(i)) {
+                componentReleases.add(releases.get(release));
+                for (String dependency : dependencies.get(releases.get(release))) {
+                    Integer dependencyComponent = releaseComponents.get(dependency);
+                    if (dependencyComponent != null && dependencyComponent != i) {
+                        level = Math.max(level, componentLevels[dependencyComponent] + 1);
+                    }
+                }
+            }
+            componentLevels[i] = level;
+            if (level == levels.size()) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(componentReleases);
+        }
+        return levels;
+    }
+
+    /**
+     * Base values are computed by their batch calculator, or node by node on the executor of their computation kind.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Map<String, T> computeBaseValues(AggregateValue<T> aggregateValue, AddedValueEnum baseAddedValue, List<String> nodeIds) {
+        if (nodeIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        AddedValueCalculator<?> calculator = baseAddedValue.getCalculator();
+        if (calculator != null) {
+            return SingleFlight.executeAll(nodeIds, baseAddedValue, missingNodeIds -> (Map<String, T>) calculator.computeAll(missingNodeIds));
+        }
+        Map<String, CompletableFuture<T>> computations = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            computations.put(nodeId, CompletableFuture.supplyAsync(RequestMetrics.propagate(
+                    () -> SingleFlight.execute(nodeId, baseAddedValue, () -> aggregateValue.computeMetric(nodeId))),
+                    Weaver.getComputationExecutor(baseAddedValue.getComputationKind())));
+        }
+        Map<String, T> values = new HashMap<>();
+        computations.forEach((nodeId, computation) -> values.put(nodeId, computation.join()));
+        return values;
+    }
+
+    /**
+     * Iterative Tarjan: strongly connected components of the releases, each one emitted after the components it depends on.
+     * @return the components as lists of release indexes
+     */
+    static List<int[]> getComponentsBottomUp(List<String> releases, Map<String, List<String>> dependencies) {
+        int releaseCount = releases.size();
+        Map<String, Integer> releaseIndexes = new HashMap<>();
+        for (int i = 0; i < releaseCount; i++) {
+            releaseIndexes.put(releases.get(i), i);
+        }
+        int[][] successors = new int[releaseCount][];
+        for (int i = 0; i < releaseCount; i++) {
+            successors[i] = dependencies.get(releases.get(i)).stream()
+                    .map(releaseIndexes::get).filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
+        }
+        int[] index = new int[releaseCount];
+        int[] lowLink = new int[releaseCount];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[releaseCount];
+        int[] stack = new int[releaseCount];
+        int stackSize = 0;
+        int[] callStack = new int[releaseCount];
+        int[] nextSuccessor = new int[releaseCount];
+        int nextIndex = 0;
+        List<int[]> components = new ArrayList<>();
+        for (int root = 0; root < releaseCount; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int callDepth = 0;
+            callStack[callDepth++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (callDepth > 0) {
+                int release = callStack[callDepth - 1];
+                if (nextSuccessor[release] < successors[release].length) {
+                    int successor = successors[release][nextSuccessor[release]++];
+                    if (index[successor] == -1) {
+                        index[successor] = lowLink[successor] = nextIndex++;
+                        stack[stackSize++] = successor;
+                        onStack[successor] = true;
+                        callStack[callDepth++] = successor;
+                    } else if (onStack[successor]) {
+                        lowLink[release] = Math.min(lowLink[release], index[successor]);
+                    }
+                    continue;
+                }
+                callDepth--;
+                if (callDepth > 0) {
+                    int caller = callStack[callDepth - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[release]);
+                }
+                if (lowLink[release] == index[release]) {
+                    int componentStart = stackSize;
+                    do {
+                        componentStart--;
+                        onStack[stack[componentStart]] = false;
+                    } while (stack[componentStart] != release);
+                    components.add(Arrays.copyOfRange(stack, componentStart, stackSize));
+                    stackSize = componentStart;
+                }
+            }
+        }
+        return components;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> AddedValue<?> newComputedValue(AddedValueEnum addedValueEnum, String nodeId, T value) {
+        AddedValue<T> addedValue = (AddedValue<T>) addedValueEnum.newInstance(nodeId);
+        addedValue.setComputedValue(value);
+        return addedValue;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memo of one weaving, shared by all its batches and aggregated added values:
+ * the compile dependencies already fetched and the aggregated and base values already known.
+ * Roots sharing subtrees don't walk them again, even after the values are evicted from the {@link AddedValueCache}.
+ */
+public class AggregationMemo {
+    private final Map<String, List<String>> dependencies = new ConcurrentHashMap<>();
+    private final Map<AddedValueEnum, Map<String, Object>> values = new ConcurrentHashMap<>();
+
+    /**
+     * @return the direct compile dependencies of the releases fetched by this weaving, by release id
+     */
+    Map<String, List<String>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * @return the number of releases and values memoized
+     */
+    int size() {
+        return dependencies.size() + values.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * @return the values of the added value known by this weaving, by node id
+     */
+    @SuppressWarnings("unchecked")
+    <T> Map<String, T> getValues(AddedValueEnum addedValueEnum) {
+        return (Map<String, T>) values.computeIfAbsent(addedValueEnum, k -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,137 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the added value computations in flight, keyed by node id and added value type:
+ * a thread asking for a value already being computed by another thread waits for that computation instead of repeating it.
+ * The aggregation engine registers the releases of each level while its caller owns the requested roots,
+ * so two threads expanding the same dependency cycle can each own a value the other one waits for.
+ * Waits are recorded in a wait-for graph, and a thread that would close a cycle computes the value itself instead of waiting.
+ * A thread asking again for a value it owns, such as the engine for the roots of its batch, computes it without waiting.
+ */
+public class SingleFlight {
+    private static final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    // Wait-for graph: the flight each thread is waiting for, guarded by itself
+    private static final Map<Thread, Flight> waitingFor = new HashMap<>();
+
+    private static class Flight {
+        private final Thread owner = Thread.currentThread();
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+    }
+
+    private SingleFlight() {
+        // private constructor to prevent instantiation
+    }
+
+    /**
+     * Computes the value, or waits for the same computation running in another thread.
+     */
+    public static <T> T execute(String nodeId, AddedValueEnum addedValueEnum, Supplier<T> computation) {
+        String key = nodeId + ":" + addedValueEnum;
+        Flight flight = new Flight();
+        Flight existingFlight = inFlight.putIfAbsent(key, flight);
+        if (existingFlight != null) {
+            return existingFlight.owner == Thread.currentThread() ? computation.get() : awaitOrCompute(existingFlight, computation);
+        }
+        try {
+            T value = computation.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Batch variant: the free keys are computed together by one call, the ones in flight elsewhere are awaited.
+     */
+    public static <T> Map<String, T> executeAll(List<String> nodeIds, AddedValueEnum addedValueEnum, Function<List<String>, Map<String, T>> computation) {
+        Map<String, Flight> ownedFlights = new LinkedHashMap<>();
+        Map<String, Flight> otherFlights = new HashMap<>();
+        // Keys already owned by this thread in an enclosing call, computed with the owned ones
+        List<String> reentrantNodeIds = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            Flight flight = new Flight();
+            Flight existingFlight = inFlight.putIfAbsent(nodeId + ":" + addedValueEnum, flight);
+            if (existingFlight == null) {
+                ownedFlights.put(nodeId, flight);
+            } else if (existingFlight.owner == Thread.currentThread()) {
+                reentrantNodeIds.add(nodeId);
+            } else {
+                otherFlights.put(nodeId, existingFlight);
+            }
+        }
+        Map<String, T> values = new HashMap<>();
+        try {
+            if (!ownedFlights.isEmpty() || !reentrantNodeIds.isEmpty()) {
+                List<String> computedNodeIds = new ArrayList<>(ownedFlights.keySet());
+                computedNodeIds.addAll(reentrantNodeIds);
+                values.putAll(computation.apply(computedNodeIds));
+            }
+            for (Map.Entry<String, Flight> entry : ownedFlights.entrySet()) {
+                entry.getValue().result.complete(values.get(entry.getKey()));
+            }
+        } catch (RuntimeException e) {
+            ownedFlights.values().forEach(flight -> flight.result.completeExceptionally(e));
+            throw e;
+        } finally {
+            ownedFlights.forEach((nodeId, flight) -> inFlight.remove(nodeId + ":" + addedValueEnum, flight));
+        }
+        for (Map.Entry<String, Flight> entry : otherFlights.entrySet()) {
+            values.put(entry.getKey(), awaitOrCompute(entry.getValue(),
+                    () -> computation.apply(List.of(entry.getKey())).get(entry.getKey())));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T awaitOrCompute(Flight flight, Supplier<T> computation) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (waitingFor) {
+            if (leadsTo(flight, currentThread)) {
+                Metrics.counter("weaver.singleflight", "outcome", "cycle").increment();
+                return computation.get();
+            }
+            waitingFor.put(currentThread, flight);
+        }
+        Metrics.counter("weaver.singleflight", "outcome", "shared").increment();
+        try {
+            return (T) flight.result.join();
+        } catch (CompletionException e) {
+            // The owner failed, compute it for this request
+            return computation.get();
+        } finally {
+            synchronized (waitingFor) {
+                waitingFor.remove(currentThread);
+            }
+        }
+    }
+
+    /**
+     * Follows the wait-for graph from the owner of the flight, true if it reaches the thread.
+     */
+    private static boolean leadsTo(Flight flight, Thread thread) {
+        Set<Thread> visited = new HashSet<>();
+        Thread owner = flight.owner;
+        while (owner != null && visited.add(owner)) {
+            if (owner == thread) {
+                return true;
+            }
+            Flight ownerWaitingFor = waitingFor.get(owner);
+            owner = ownerWaitingFor != null ? ownerWaitingFor.owner : null;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.GraphObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.ValueObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.edges.EdgeObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import org.json.simple.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Writes graph objects as NDJSON lines ({"node": ...}, {"edge": ...} or {"value": ...}) as soon as they are received.
+ * Nodes are buffered in fixed-size chunks so that added values are woven chunk by chunk.
+ * The chunks share an aggregation memo, started again once it holds more than streamMemoMaxEntries entries.
+ */
+public class StreamingGraphWriter implements Consumer<GraphObject>, Closeable {
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    private final Writer writer;
+    private final Set<AddedValueEnum> addedValues;
+    private final int chunkSize;
+    private final int memoMaxEntries = Integer.getInteger("streamMemoMaxEntries", 1000000);
+    private final List<NodeObject> nodeChunk = new ArrayList<>();
+    private AggregationMemo memo = new AggregationMemo();
+
+    public StreamingGraphWriter(OutputStream outputStream, Set<AddedValueEnum> addedValues) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.addedValues = addedValues == null ? Set.of() : addedValues;
+        this.chunkSize = Integer.getInteger("streamWeavingChunkSize", DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public void accept(GraphObject graphObject) {
+        if (graphObject instanceof NodeObject) {
+            nodeChunk.add((NodeObject) graphObject);
+            if (nodeChunk.size() >= chunkSize) {
+                flushNodes();
+            }
+        } else if (graphObject instanceof EdgeObject) {
+            writeLine("edge", graphObject);
+        } else if (graphObject instanceof ValueObject) {
+            writeLine("value", graphObject);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushNodes();
+        writer.flush();
+    }
+
+    private void flushNodes() {
+        if (nodeChunk.isEmpty()) {
+            return;
+        }
+        if (memo.size() > memoMaxEntries) {
+            memo = new AggregationMemo();
+        }
+        Weaver.weaveNodes(nodeChunk, addedValues, memo);
+        for (NodeObject node : nodeChunk) {
+            writeLine("node", node);
+        }
+        nodeChunk.clear();
+    }
+
+    private void writeLine(String kind, GraphObject graphObject) {
+        JSONObject line = new JSONObject();
+        line.put(kind, graphObject.getJsonObject());
+        try {
+            writer.write(line.toJSONString());
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -4,41 +4,79 @@ import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
 import com.cifre.sap.su.goblinWeaver.weaver.addedValue.*;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 public class Weaver {
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final int BATCH_SIZE = Integer.getInteger("weaverBatchSize", 10000);
+    private static final Map<ComputationKind, ExecutorService> computationExecutors = createComputationExecutors();
 
     public static void weaveGraph (InternGraph graph, Set<AddedValueEnum> addedValues){
+        weaveNodes(graph.getGraphNodes(), addedValues);
+    }
+
+    public static void weaveGraph (InternGraph graph, Set<AddedValueEnum> addedValues, WeavingProgress progress){
+        weaveNodes(graph.getGraphNodes(), addedValues, progress, NO_DEADLINE);
+    }
+
+    /**
+     * Weaves until the deadline, the values still computing are marked pending on their nodes.
+     */
+    public static void weaveGraph (InternGraph graph, Set<AddedValueEnum> addedValues, long deadlineMs){
+        weaveNodes(graph.getGraphNodes(), addedValues, new WeavingProgress(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs));
+    }
+
+    public static void weaveNodes (Collection<NodeObject> nodes, Set<AddedValueEnum> addedValues){
+        weaveNodes(nodes, addedValues, new AggregationMemo());
+    }
+
+    /**
+     * @param memo shared by successive weavings of the same request
+     */
+    public static void weaveNodes (Collection<NodeObject> nodes, Set<AddedValueEnum> addedValues, AggregationMemo memo){
+        weaveNodes(nodes, addedValues, new WeavingProgress(), NO_DEADLINE, memo);
+    }
+
+    /**
+     * @param progress updated with the nodes done for each added value, once their batch is computed
+     * @param deadlineNanos {@link System#nanoTime()} after which missing values are left pending, or NO_DEADLINE
+     */
+    public static void weaveNodes (Collection<NodeObject> nodes, Set<AddedValueEnum> addedValues, WeavingProgress progress, long deadlineNanos){
+        weaveNodes(nodes, addedValues, progress, deadlineNanos, new AggregationMemo());
+    }
+
+    private static void weaveNodes (Collection<NodeObject> nodes, Set<AddedValueEnum> addedValues, WeavingProgress progress, long deadlineNanos, AggregationMemo memo){
         if(addedValues.isEmpty()){
             return;
         }
-        List<AddedValue<?>> computedAddedValues = new ArrayList<>();
+        List<WeavingPipeline.Batch> batches = new ArrayList<>();
         for(NodeType nodeType : NodeType.values()){
             Set<AddedValueEnum> nodeTypeAddedValues = addedValues.stream().filter(a -> a.getTargetNodeType().equals(nodeType)).collect(Collectors.toSet());
             if(!nodeTypeAddedValues.isEmpty()){
-                for (List<NodeObject> nodeBatch : nodeIdToBatch(graph, nodeType)) {
-                    Map<String, Map<AddedValueEnum, String>> resolvedNodeAddedValues = GraphDatabaseSingleton.getInstance().getNodeAddedValues(nodeBatch.stream().map(NodeObject::getId).toList(), addedValues, nodeType);
-                    computedAddedValues.addAll(fillNodeAddedValues(nodeBatch, nodeTypeAddedValues, resolvedNodeAddedValues));
-                    GraphDatabaseSingleton.getInstance().addAddedValues(computedAddedValues);
-                    computedAddedValues.clear();
+                for (List<NodeObject> nodeBatch : nodeIdToBatch(nodes, nodeType)) {
+                    batches.add(new WeavingPipeline.Batch(nodeType, nodeBatch, nodeTypeAddedValues, addedValues));
+                    progress.addTotal(nodeTypeAddedValues, nodeBatch.size());
                 }
             }
         }
+        WeavingPipeline.run(batches, progress, deadlineNanos, memo);
     }
 
-    private static List<List<NodeObject>> nodeIdToBatch(InternGraph graph, NodeType type) {
-        int batchSize = 100000;
+    private static List<List<NodeObject>> nodeIdToBatch(Collection<NodeObject> nodes, NodeType type) {
         List<List<NodeObject>> batches = new ArrayList<>();
         int i = 0;
         List<NodeObject> currentBatch = new ArrayList<>();
-        List<NodeObject> nodeObjectsTyped = graph.getGraphNodes().stream().filter(node -> node.getType().equals(type)).toList();
+        List<NodeObject> nodeObjectsTyped = nodes.stream().filter(node -> node.getType().equals(type)).toList();
         for (NodeObject node : nodeObjectsTyped) {
             currentBatch.add(node);
-            if (++i % batchSize == 0 || i == nodeObjectsTyped.size()) {
+            if (++i % BATCH_SIZE == 0 || i == nodeObjectsTyped.size()) {
                 batches.add(new ArrayList<>(currentBatch));
                 currentBatch.clear();
             }
@@ -46,55 +84,180 @@ public class Weaver {
         return batches;
     }
 
-    private static List<AddedValue<?>> fillNodeAddedValues(List<NodeObject> nodes, Set<AddedValueEnum> nodeTypeAddedValues, Map<String,Map<AddedValueEnum,String>> resolvedNodeAddedValues) {
-        List<AddedValue<?>> computedAddedValues = new ArrayList<>();
+    /**
+     * Values missing on the graph are computed concurrently, on the executor of their computation kind:
+     * added values with a batch calculator are computed for all missing nodes at once, the others one node at a time,
+     * submitted from the cheapest computation kind to the most expensive one.
+     * Values already being computed for a concurrent request are awaited through {@link SingleFlight}.
+     * They are attached to the nodes on the calling thread, in node then added value order.
+     * Values not computed at the deadline are marked pending on their node, and persisted in background once computed.
+     * Aggregated values share the memo of the weaving.
+     */
+    static List<AddedValue<?>> fillNodeAddedValues(List<NodeObject> nodes, Set<AddedValueEnum> nodeTypeAddedValues, Map<String,Map<AddedValueEnum,String>> resolvedNodeAddedValues, long deadlineNanos, AggregationMemo memo) {
+        List<AddedValueEnum> orderedAddedValues = new ArrayList<>(EnumSet.copyOf(nodeTypeAddedValues));
+        List<NodeObject> valueNodes = new ArrayList<>();
+        List<AddedValue<?>> nodeAddedValues = new ArrayList<>();
+        Map<AddedValueEnum, List<String>> missingNodeIds = new EnumMap<>(AddedValueEnum.class);
+        BitSet batchComputed = new BitSet();
+        BitSet singleComputed = new BitSet();
         for (NodeObject node : nodes){
-            for (AddedValueEnum addedValueEnum : nodeTypeAddedValues) {
-                try {
-                    AddedValue<?> addedValue = addedValueEnum.getAddedValueClass().getDeclaredConstructor(String.class).newInstance(node.getId());
-                    // If addedValue is present on graph
-                    if (resolvedNodeAddedValues.containsKey(node.getId()) && resolvedNodeAddedValues.get(node.getId()).containsKey(addedValueEnum)) {
-                        addedValue.setValue(resolvedNodeAddedValues.get(node.getId()).get(addedValueEnum));
-                    } else {
-                        addedValue.computeValue();
-                        // Aggregated values put on graph when compute
-                        if (!addedValueEnum.isAggregatedValue()) {
-                            computedAddedValues.add(addedValue);
-                        }
-                    }
-                    node.addAddedValue(addedValue);
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    e.printStackTrace();
+            for (AddedValueEnum addedValueEnum : orderedAddedValues) {
+                AddedValue<?> addedValue = addedValueEnum.newInstance(node.getId());
+                // If addedValue is present on graph
+                if (resolvedNodeAddedValues.containsKey(node.getId()) && resolvedNodeAddedValues.get(node.getId()).containsKey(addedValueEnum)) {
+                    addedValue.setValue(resolvedNodeAddedValues.get(node.getId()).get(addedValueEnum));
+                } else if (addedValueEnum.getCalculator() != null) {
+                    missingNodeIds.computeIfAbsent(addedValueEnum, k -> new ArrayList<>()).add(node.getId());
+                    batchComputed.set(nodeAddedValues.size());
+                } else {
+                    singleComputed.set(nodeAddedValues.size());
                 }
+                valueNodes.add(node);
+                nodeAddedValues.add(addedValue);
             }
             resolvedNodeAddedValues.remove(node.getId());
         }
-        return computedAddedValues;
-    }
-
-    private static List<AddedValue<?>> fillNodeAddedValuesOld(InternGraph graph, Set<AddedValueEnum> nodeTypeAddedValues, Map<String,Map<AddedValueEnum,String>> resolvedNodeAddedValues, NodeType nodeType) {
+        Map<AddedValueEnum, CompletableFuture<? extends Map<String, ?>>> batchComputations = new EnumMap<>(AddedValueEnum.class);
+        for (Map.Entry<AddedValueEnum, List<String>> entry : missingNodeIds.entrySet()) {
+            AddedValueEnum addedValueEnum = entry.getKey();
+            AddedValueCalculator<?> calculator = addedValueEnum.isAggregatedValue()
+                    ? nodeIds -> AggregationEngine.computeAll(addedValueEnum, nodeIds, memo)
+                    : addedValueEnum.getCalculator();
+            batchComputations.put(entry.getKey(), CompletableFuture.supplyAsync(RequestMetrics.propagate(() -> computeBatch(entry.getKey(), calculator, entry.getValue())),
+                    getComputationExecutor(entry.getKey().getComputationKind())));
+        }
+        Map<Integer, CompletableFuture<Void>> computations = new HashMap<>();
+        for (ComputationKind computationKind : ComputationKind.values()) {
+            for (int i = singleComputed.nextSetBit(0); i >= 0; i = singleComputed.nextSetBit(i + 1)) {
+                AddedValue<?> addedValue = nodeAddedValues.get(i);
+                if (addedValue.getAddedValueEnum().getComputationKind() == computationKind) {
+                    computations.put(i, CompletableFuture.runAsync(RequestMetrics.propagate(() -> computeValue(addedValue)), getComputationExecutor(computationKind)));
+                }
+            }
+        }
         List<AddedValue<?>> computedAddedValues = new ArrayList<>();
-        for (NodeObject node : graph.getGraphNodes().stream().filter(node -> node.getType().equals(nodeType)).collect(Collectors.toSet())){
-            String nodeId = node.getId();
-            for(AddedValueEnum addedValueEnum : nodeTypeAddedValues){
-                try {
-                    AddedValue<?> addedValue = addedValueEnum.getAddedValueClass().getDeclaredConstructor(String.class).newInstance(nodeId);
-                    // If addedValue is present on graph
-                    if(resolvedNodeAddedValues.containsKey(nodeId) && resolvedNodeAddedValues.get(nodeId).containsKey(addedValueEnum)){
-                        addedValue.setValue(resolvedNodeAddedValues.get(nodeId).get(addedValueEnum));
-                    }
-                    else{
-                        addedValue.computeValue();
-                        if(!addedValueEnum.isAggregatedValue()){
-                            computedAddedValues.add(addedValue);
-                        }
-                    }
-                    node.addAddedValue(addedValue);
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    e.printStackTrace();
+        Map<AddedValueEnum, List<AddedValue<?>>> pendingBatchValues = new EnumMap<>(AddedValueEnum.class);
+        for (int i = 0; i < nodeAddedValues.size(); i++) {
+            AddedValue<?> addedValue = nodeAddedValues.get(i);
+            boolean computed = singleComputed.get(i) || batchComputed.get(i);
+            if (singleComputed.get(i)) {
+                if (!awaitUntil(computations.get(i), deadlineNanos)) {
+                    valueNodes.get(i).addPendingAddedValue(addedValue.getAddedValueEnum());
+                    computations.get(i).thenRun(() -> persistInBackground(List.of(addedValue)));
+                    continue;
                 }
+            } else if (batchComputed.get(i)) {
+                CompletableFuture<? extends Map<String, ?>> batchComputation = batchComputations.get(addedValue.getAddedValueEnum());
+                if (!awaitUntil(batchComputation, deadlineNanos)) {
+                    valueNodes.get(i).addPendingAddedValue(addedValue.getAddedValueEnum());
+                    pendingBatchValues.computeIfAbsent(addedValue.getAddedValueEnum(), k -> new ArrayList<>()).add(addedValue);
+                    continue;
+                }
+                setComputedValue(addedValue, batchComputation.join().get(addedValue.getNodeId()));
+            }
+            // Aggregated values are persisted by the aggregation engine
+            if (computed && !addedValue.getAddedValueEnum().isAggregatedValue()) {
+                computedAddedValues.add(addedValue);
             }
+            valueNodes.get(i).addAddedValue(addedValue);
+        }
+        for (Map.Entry<AddedValueEnum, List<AddedValue<?>>> entry : pendingBatchValues.entrySet()) {
+            batchComputations.get(entry.getKey()).thenAccept(values -> {
+                entry.getValue().forEach(addedValue -> setComputedValue(addedValue, values.get(addedValue.getNodeId())));
+                persistInBackground(entry.getValue());
+            });
         }
         return computedAddedValues;
     }
+
+    /**
+     * @return false if the computation is not done at the deadline
+     */
+    private static boolean awaitUntil(CompletableFuture<?> computation, long deadlineNanos) {
+        if (deadlineNanos == NO_DEADLINE) {
+            computation.join();
+            return true;
+        }
+        try {
+            computation.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Values computed after the deadline are not attached to any node, they are kept for the next requests.
+     */
+    private static void persistInBackground(List<AddedValue<?>> addedValues) {
+        List<AddedValue<?>> computedAddedValues = addedValues.stream().filter(addedValue -> !addedValue.getAddedValueEnum().isAggregatedValue()).toList();
+        try {
+            AddedValueCache.getInstance().put(computedAddedValues);
+            AddedValueWriteBehind.getInstance().enqueue(computedAddedValues);
+        } catch (Exception e) {
+            System.out.println("Fail to persist added values computed after the deadline:\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Shares the computation with concurrent requests asking for the same value.
+     */
+    private static <T> void computeValue(AddedValue<T> addedValue) {
+        AddedValueEnum addedValueEnum = addedValue.getAddedValueEnum();
+        addedValue.setComputedValue(SingleFlight.execute(addedValue.getNodeId(), addedValueEnum, () -> {
+            getComputeTimer(addedValueEnum, "single").record(addedValue::computeValue);
+            countComputed(addedValueEnum, 1);
+            return addedValue.getValue();
+        }));
+    }
+
+    private static <T> Map<String, T> computeBatch(AddedValueEnum addedValueEnum, AddedValueCalculator<T> calculator, List<String> nodeIds) {
+        return SingleFlight.executeAll(nodeIds, addedValueEnum, missingNodeIds -> {
+            countComputed(addedValueEnum, missingNodeIds.size());
+            return getComputeTimer(addedValueEnum, "batch").record(() -> calculator.computeAll(missingNodeIds));
+        });
+    }
+
+    /**
+     * Time of a computation, for one node in single mode or for a whole batch in batch mode.
+     */
+    private static Timer getComputeTimer(AddedValueEnum addedValueEnum, String mode) {
+        return Metrics.timer("weaver.addedvalue.compute", "addedValue", addedValueEnum.toString(), "mode", mode, "endpoint", RequestMetrics.getEndpoint());
+    }
+
+    private static void countComputed(AddedValueEnum addedValueEnum, int nodeCount) {
+        Metrics.counter("weaver.addedvalue.computed", "addedValue", addedValueEnum.toString(), "endpoint", RequestMetrics.getEndpoint()).increment(nodeCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setComputedValue(AddedValue<T> addedValue, Object value) {
+        addedValue.setComputedValue((T) value);
+    }
+
+    static Executor getComputationExecutor(ComputationKind computationKind) {
+        return computationExecutors.getOrDefault(computationKind, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * One fixed pool per computation kind with a concurrency limit, kinds without limit run on the common pool.
+     */
+    private static Map<ComputationKind, ExecutorService> createComputationExecutors() {
+        Map<ComputationKind, ExecutorService> executors = new EnumMap<>(ComputationKind.class);
+        for (ComputationKind computationKind : ComputationKind.values()) {
+            int concurrency = computationKind.getConcurrency();
+            if (concurrency > 0) {
+                executors.put(computationKind, Executors.newFixedThreadPool(concurrency, runnable -> {
+                    Thread thread = new Thread(runnable, "weaver-" + computationKind.name().toLowerCase());
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+            }
+        }
+        return executors;
+    }
 }
@@ -0,0 +1,75 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import org.json.simple.JSONObject;
+
+import java.util.UUID;
+
+/**
+ * Weaving running in the background, its result is kept by {@link WeavingJobManager} until the retention limit.
+ */
+public class WeavingJob {
+    public enum Status {PENDING, RUNNING, DONE, FAILED}
+
+    private final String id = UUID.randomUUID().toString();
+    private final long createdAt = System.currentTimeMillis();
+    private final WeavingProgress progress = new WeavingProgress();
+    private volatile Status status = Status.PENDING;
+    private volatile long finishedAt;
+    private volatile JSONObject result;
+    private volatile String error;
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public JSONObject getResult() {
+        return result;
+    }
+
+    WeavingProgress getProgress() {
+        return progress;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void complete(JSONObject result) {
+        this.result = result;
+        finishedAt = System.currentTimeMillis();
+        status = Status.DONE;
+    }
+
+    void fail(Exception e) {
+        error = e.getMessage();
+        finishedAt = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    public JSONObject getJsonObject() {
+        JSONObject jobJson = new JSONObject();
+        jobJson.put("jobId", id);
+        jobJson.put("status", status.toString());
+        jobJson.put("createdAt", createdAt);
+        if (isFinished()) {
+            jobJson.put("finishedAt", finishedAt);
+        }
+        if (error != null) {
+            jobJson.put("error", error);
+        }
+        jobJson.put("progress", progress.getJsonObject());
+        return jobJson;
+    }
+}
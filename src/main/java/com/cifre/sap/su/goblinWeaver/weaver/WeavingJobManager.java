@@ -0,0 +1,132 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import org.json.simple.JSONObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs weavings in the background for the asynchronous mode of the endpoints:
+ * jobs run on a bounded executor, a job is rejected when too many are already waiting.
+ * Finished jobs are kept until they are older than the retention time or too many jobs are finished.
+ */
+public class WeavingJobManager {
+    private static WeavingJobManager instance;
+    private final long retentionMs;
+    private final int maxRetained;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor jobExecutor;
+    // Insertion ordered, the first jobs are the oldest
+    private final LinkedHashMap<String, WeavingJob> jobs = new LinkedHashMap<>();
+
+    private WeavingJobManager() {
+        this(Integer.getInteger("weavingJobConcurrency", 4), Integer.getInteger("weavingJobQueueCapacity", 100),
+                Long.getLong("weavingJobRetentionMs", 3600000L), Integer.getInteger("weavingJobMaxRetained", 100),
+                Long.getLong("weavingJobRetryAfterSeconds", 30L));
+    }
+
+    WeavingJobManager(int concurrency, int queueCapacity, long retentionMs, int maxRetained, long retryAfterSeconds) {
+        this.retentionMs = retentionMs;
+        this.maxRetained = maxRetained;
+        this.retryAfterSeconds = retryAfterSeconds;
+        jobExecutor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "weaving-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static WeavingJobManager getInstance() {
+        if (instance == null) {
+            synchronized (WeavingJobManager.class) {
+                if (instance == null) {
+                    instance = new WeavingJobManager();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Weaves the graph and returns it, or in asynchronous mode returns the job weaving it in the background.
+     * With a deadline, the graph is returned with the values computed in time, the others are marked pending.
+     * Asynchronous jobs ignore the deadline.
+     */
+    public JSONObject weaveGraph(InternGraph graph, Set<AddedValueEnum> addedValues, boolean async, Integer deadlineMs) {
+        if (async) {
+            return submit(graph, addedValues).getJsonObject();
+        }
+        if (deadlineMs != null) {
+            Weaver.weaveGraph(graph, addedValues, deadlineMs.longValue());
+        } else {
+            Weaver.weaveGraph(graph, addedValues);
+        }
+        return graph.getJsonGraph();
+    }
+
+    /**
+     * @throws ResponseStatusException 503 with a Retry-After header when the job queue is full
+     */
+    public WeavingJob submit(InternGraph graph, Set<AddedValueEnum> addedValues) {
+        WeavingJob job = new WeavingJob();
+        try {
+            jobExecutor.execute(RequestMetrics.propagate(() -> {
+                job.start();
+                try {
+                    Weaver.weaveGraph(graph, addedValues, job.getProgress());
+                    job.complete(graph.getJsonGraph());
+                } catch (Exception e) {
+                    System.out.println("Weaving job " + job.getId() + " failed:\n" + e.getMessage());
+                    job.fail(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many weaving jobs waiting, retry later", e) {
+                @Override
+                public HttpHeaders getHeaders() {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                    return headers;
+                }
+            };
+        }
+        synchronized (jobs) {
+            evictExpiredJobs();
+            jobs.put(job.getId(), job);
+        }
+        return job;
+    }
+
+    public WeavingJob getJob(String jobId) {
+        synchronized (jobs) {
+            evictExpiredJobs();
+            return jobs.get(jobId);
+        }
+    }
+
+    /**
+     * Removes the finished jobs older than the retention time, then the oldest finished jobs above the retained count.
+     */
+    private void evictExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.isFinished() && now - job.getFinishedAt() > retentionMs);
+        int finishedJobs = (int) jobs.values().stream().filter(WeavingJob::isFinished).count();
+        Iterator<WeavingJob> iterator = jobs.values().iterator();
+        while (finishedJobs > maxRetained && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finishedJobs--;
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.utils.RequestMetrics;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Weaves node batches in three stages linked by bounded queues: the added values lookup of batch N+1,
+ * the computation of batch N (on the calling thread) and the persistence of batch N-1 run at the same time.
+ * Persistence hands the values to {@link AddedValueWriteBehind}, it only blocks when too many values wait to be written.
+ * A full queue blocks the stage feeding it, so lookups slow down when computing or writing falls behind.
+ * With a deadline, batches computed after it only attach the values found by the lookup, their computations go on in background.
+ * Batches not looked up yet at the deadline are not queried at all, all their values are marked pending.
+ * Queue depths are published as gauges, stage throughput as node counters and batch timers.
+ */
+class WeavingPipeline {
+    private static final int QUEUE_CAPACITY = Integer.getInteger("weaverPipelineQueueCapacity", 2);
+    private static final Batch END = new Batch(null, List.of(), Set.of(), Set.of());
+    private static final ExecutorService stageExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "weaver-pipeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger computeQueueDepth = Metrics.gauge("weaver.pipeline.queue.depth", Tags.of("stage", "compute"), new AtomicInteger());
+    private static final AtomicInteger persistQueueDepth = Metrics.gauge("weaver.pipeline.queue.depth", Tags.of("stage", "persist"), new AtomicInteger());
+
+    private final BlockingQueue<Batch> computeQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Batch> persistQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final WeavingProgress progress;
+    private final long deadlineNanos;
+    private final AggregationMemo memo;
+
+    static class Batch {
+        private final NodeType nodeType;
+        private final List<NodeObject> nodes;
+        private final Set<AddedValueEnum> nodeTypeAddedValues;
+        private final Set<AddedValueEnum> addedValues;
+        private Map<String, Map<AddedValueEnum, String>> resolvedNodeAddedValues;
+        private List<AddedValue<?>> computedAddedValues;
+
+        Batch(NodeType nodeType, List<NodeObject> nodes, Set<AddedValueEnum> nodeTypeAddedValues, Set<AddedValueEnum> addedValues) {
+            this.nodeType = nodeType;
+            this.nodes = nodes;
+            this.nodeTypeAddedValues = nodeTypeAddedValues;
+            this.addedValues = addedValues;
+        }
+    }
+
+    /**
+     * Runs all batches through the pipeline and returns once every computed value is attached and handed over for writing.
+     */
+    static void run(List<Batch> batches, WeavingProgress progress, long deadlineNanos, AggregationMemo memo) {
+        new WeavingPipeline(progress, deadlineNanos, memo).process(batches);
+    }
+
+    private WeavingPipeline(WeavingProgress progress, long deadlineNanos, AggregationMemo memo) {
+        this.progress = progress;
+        this.deadlineNanos = deadlineNanos;
+        this.memo = memo;
+    }
+
+    private void process(List<Batch> batches) {
+        Future<?> lookupStage = stageExecutor.submit(RequestMetrics.propagate(() -> lookup(batches)));
+        Future<?> persistStage = stageExecutor.submit(RequestMetrics.propagate(this::persist));
+        try {
+            compute();
+        } catch (RuntimeException e) {
+            lookupStage.cancel(true);
+            List<Batch> pendingBatches = new ArrayList<>();
+            computeQueue.drainTo(pendingBatches);
+            pendingBatches.remove(END);
+            computeQueueDepth.addAndGet(-pendingBatches.size());
+            throw e;
+        } finally {
+            putEnd(persistQueue);
+            waitFor(persistStage);
+        }
+        waitFor(lookupStage);
+    }
+
+    private void lookup(List<Batch> batches) {
+        try {
+            for (Batch batch : batches) {
+                if (deadlineNanos != Weaver.NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0) {
+                    markPending(batch);
+                    continue;
+                }
+                long start = System.nanoTime();
+                batch.resolvedNodeAddedValues = AddedValueCache.getInstance()
+                        .getNodeAddedValues(batch.nodes.stream().map(NodeObject::getId).toList(), batch.addedValues, batch.nodeType);
+                recordStage("lookup", batch, start);
+                put(computeQueue, computeQueueDepth, batch);
+            }
+        } finally {
+            // Always unblocks the compute stage, a lookup failure is reported when the stage is waited for
+            putEnd(computeQueue);
+        }
+    }
+
+    private static void markPending(Batch batch) {
+        for (NodeObject node : batch.nodes) {
+            batch.nodeTypeAddedValues.forEach(node::addPendingAddedValue);
+        }
+        Counter.builder("weaver.pipeline.nodes").tag("stage", "pending").register(Metrics.globalRegistry)
+                .increment(batch.nodes.size());
+    }
+
+    private void compute() {
+        while (true) {
+            Batch batch = take(computeQueue, computeQueueDepth);
+            if (batch == END) {
+                return;
+            }
+            long start = System.nanoTime();
+            batch.computedAddedValues = Weaver.fillNodeAddedValues(batch.nodes, batch.nodeTypeAddedValues, batch.resolvedNodeAddedValues, deadlineNanos, memo);
+            batch.resolvedNodeAddedValues = null;
+            AddedValueCache.getInstance().put(batch.computedAddedValues);
+            recordStage("compute", batch, start);
+            progress.addDone(batch.nodeTypeAddedValues, batch.nodes.size());
+            put(persistQueue, persistQueueDepth, batch);
+        }
+    }
+
+    private void persist() {
+        while (true) {
+            Batch batch = take(persistQueue, persistQueueDepth);
+            if (batch == END) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                AddedValueWriteBehind.getInstance().enqueue(batch.computedAddedValues);
+            } catch (Exception e) {
+                // Values are already attached to the nodes, only their persistence is lost
+                System.out.println("Fail to persist a batch of " + batch.computedAddedValues.size() + " added values:\n" + e.getMessage());
+            }
+            recordStage("persist", batch, start);
+        }
+    }
+
+    private static void recordStage(String stage, Batch batch, long start) {
+        Timer.builder("weaver.pipeline.stage").tag("stage", stage).register(Metrics.globalRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter.builder("weaver.pipeline.nodes").tag("stage", stage).register(Metrics.globalRegistry)
+                .increment(batch.nodes.size());
+    }
+
+    private static void put(BlockingQueue<Batch> queue, AtomicInteger depth, Batch batch) {
+        depth.incrementAndGet();
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            depth.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Weaving pipeline interrupted");
+        }
+    }
+
+    private static void putEnd(BlockingQueue<Batch> queue) {
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // Only interrupted when the pipeline is cancelled, nobody waits for the marker
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Batch take(BlockingQueue<Batch> queue, AtomicInteger depth) {
+        try {
+            Batch batch = queue.take();
+            if (batch != END) {
+                depth.decrementAndGet();
+            }
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Weaving pipeline interrupted");
+        }
+    }
+
+    private static void waitFor(Future<?> stage) {
+        try {
+            stage.get();
+        } catch (CancellationException e) {
+            // Stage cancelled after a failure of the compute stage
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
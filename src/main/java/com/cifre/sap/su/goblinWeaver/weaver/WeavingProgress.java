@@ -0,0 +1,43 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import org.json.simple.JSONObject;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of nodes done and to do for each added value of a weaving, updated batch by batch.
+ */
+public class WeavingProgress {
+    private final Map<AddedValueEnum, AtomicInteger> totalNodes = new ConcurrentHashMap<>();
+    private final Map<AddedValueEnum, AtomicInteger> doneNodes = new ConcurrentHashMap<>();
+
+    void addTotal(Set<AddedValueEnum> addedValues, int nodeCount) {
+        for (AddedValueEnum addedValue : addedValues) {
+            totalNodes.computeIfAbsent(addedValue, k -> new AtomicInteger()).addAndGet(nodeCount);
+            doneNodes.computeIfAbsent(addedValue, k -> new AtomicInteger());
+        }
+    }
+
+    void addDone(Set<AddedValueEnum> addedValues, int nodeCount) {
+        for (AddedValueEnum addedValue : addedValues) {
+            doneNodes.computeIfAbsent(addedValue, k -> new AtomicInteger()).addAndGet(nodeCount);
+        }
+    }
+
+    public JSONObject getJsonObject() {
+        JSONObject progressJson = new JSONObject();
+        Set<AddedValueEnum> addedValues = totalNodes.isEmpty() ? Set.of() : EnumSet.copyOf(totalNodes.keySet());
+        for (AddedValueEnum addedValue : addedValues) {
+            JSONObject addedValueJson = new JSONObject();
+            addedValueJson.put("done", doneNodes.get(addedValue).get());
+            addedValueJson.put("total", totalNodes.get(addedValue).get());
+            progressJson.put(addedValue.toString(), addedValueJson);
+        }
+        return progressJson;
+    }
+}
@@ -30,4 +30,9 @@ public abstract class AbstractAddedValue<T> implements AddedValue<T>{
     public void setValue(String value) {
         this.value = this.stringToValue(value);
     }
+
+    @Override
+    public void setComputedValue(T value) {
+        this.value = value;
+    }
 }
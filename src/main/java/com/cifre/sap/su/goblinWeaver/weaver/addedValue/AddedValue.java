@@ -6,6 +6,7 @@ public interface AddedValue<T> {
     AddedValueEnum getAddedValueEnum();
     String getNodeId();
     void setValue(String value);
+    void setComputedValue(T value);
     void computeValue();
     Map<String, Object> getValueMap();
     T stringToValue(String jsonString);
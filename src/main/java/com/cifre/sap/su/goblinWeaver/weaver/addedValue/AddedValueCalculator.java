@@ -0,0 +1,16 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Computes an added value for a whole batch of nodes at once, with set-based queries or lookups.
+ */
+@FunctionalInterface
+public interface AddedValueCalculator<T> {
+
+    /**
+     * @return the computed value of every given node id
+     */
+    Map<String, T> computeAll(Collection<String> nodeIds);
+}
@@ -1,8 +1,12 @@
 package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
 
 import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.weaver.AggregationEngine;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
+import java.util.Map;
+import java.util.Set;
+
 @JsonDeserialize(using = AddedValueEnumDeserializer.class)
 public enum AddedValueEnum {
     CVE,
@@ -22,17 +26,54 @@ public enum AddedValueEnum {
         };
     }
 
-    public Class<? extends AddedValue<?>> getAddedValueClass(){
+    public ComputationKind getComputationKind(){
+        return switch (this) {
+            case CVE -> ComputationKind.MEMORY;
+            case SBOM -> ComputationKind.HTTP;
+            // Aggregations query the dependencies subgraph
+            case CVE_AGGREGATED, FRESHNESS, FRESHNESS_AGGREGATED, POPULARITY_1_YEAR, POPULARITY_1_YEAR_AGGREGATED, SBOM_AGGREGATED, SPEED -> ComputationKind.DATABASE;
+        };
+    }
+
+    public AddedValue<?> newInstance(String nodeId){
+        return switch (this) {
+            case CVE -> new Cve(nodeId);
+            case CVE_AGGREGATED -> new CveAggregated(nodeId);
+            case FRESHNESS -> new Freshness(nodeId);
+            case FRESHNESS_AGGREGATED -> new FreshnessAggregated(nodeId);
+            case POPULARITY_1_YEAR -> new Popularity1Year(nodeId);
+            case POPULARITY_1_YEAR_AGGREGATED -> new Popularity1YearAggregated(nodeId);
+            case SPEED -> new Speed(nodeId);
+            case SBOM -> new Sbom(nodeId);
+            case SBOM_AGGREGATED -> new SbomAggregated(nodeId);
+        };
+    }
+
+    /**
+     * @return the batch calculator of the added value, or null if values are only computed one node at a time
+     */
+    public AddedValueCalculator<?> getCalculator(){
+        return switch (this) {
+            case CVE -> (AddedValueCalculator<Set<Map<String, String>>>) Cve::computeAll;
+            case FRESHNESS -> (AddedValueCalculator<Map<String, String>>) Freshness::computeAll;
+            case POPULARITY_1_YEAR -> (AddedValueCalculator<Integer>) Popularity1Year::computeAll;
+            case SPEED -> (AddedValueCalculator<Double>) Speed::computeAll;
+            case SBOM -> (AddedValueCalculator<Set<Map<String, String>>>) Sbom::computeAll;
+            case CVE_AGGREGATED, FRESHNESS_AGGREGATED, POPULARITY_1_YEAR_AGGREGATED, SBOM_AGGREGATED -> nodeIds -> AggregationEngine.computeAll(this, nodeIds);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the added value merged over the dependencies by an aggregated value, null for the others
+     */
+    public AddedValueEnum getBaseAddedValue(){
         return switch (this) {
-            case CVE -> Cve.class;
-            case CVE_AGGREGATED -> CveAggregated.class;
-            case FRESHNESS -> Freshness.class;
-            case FRESHNESS_AGGREGATED -> FreshnessAggregated.class;
-            case POPULARITY_1_YEAR -> Popularity1Year.class;
-            case POPULARITY_1_YEAR_AGGREGATED -> Popularity1YearAggregated.class;
-            case SPEED -> Speed.class;
-            case SBOM -> Sbom.class;
-            case SBOM_AGGREGATED -> SbomAggregated.class;
+            case CVE_AGGREGATED -> CVE;
+            case FRESHNESS_AGGREGATED -> FRESHNESS;
+            case POPULARITY_1_YEAR_AGGREGATED -> POPULARITY_1_YEAR;
+            case SBOM_AGGREGATED -> SBOM;
+            default -> null;
         };
     }
 
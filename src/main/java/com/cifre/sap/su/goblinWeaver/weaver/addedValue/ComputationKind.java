@@ -0,0 +1,25 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+/**
+ * What an added value waits on while it is computed, each kind has its own concurrency limit in the Weaver.
+ */
+public enum ComputationKind {
+    DATABASE("weaverDatabaseConcurrency", 64),
+    HTTP("weaverHttpConcurrency", 16),
+    MEMORY("weaverMemoryConcurrency", 0);
+
+    private final String concurrencyProperty;
+    private final int defaultConcurrency;
+
+    ComputationKind(String concurrencyProperty, int defaultConcurrency) {
+        this.concurrencyProperty = concurrencyProperty;
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    /**
+     * @return the maximum number of values of this kind computed at the same time, 0 or less for unbounded
+     */
+    public int getConcurrency() {
+        return Integer.getInteger(concurrencyProperty, defaultConcurrency);
+    }
+}
@@ -69,22 +69,45 @@ public class Cve extends AbstractAddedValue<Set<Map<String, String>>>{
     }
 
     protected static Set<Map<String, String>> getCveFromGav(String gav){
-        Set<Map<String, String>> resultSet = new HashSet<>();
+        try {
+            return getCveFromGav(OsvDataSingleton.getDataJsonObject(), gav);
+        } catch (IOException | ParseException e) {
+            e.printStackTrace();
+        }
+        return new HashSet<>();
+    }
+
+    /**
+     * Looks up the CVEs of all releases in the OSV data, loaded once for the batch.
+     */
+    public static Map<String, Set<Map<String, String>>> computeAll(Collection<String> nodeIds){
+        Map<String, Set<Map<String, String>>> cveByRelease = new HashMap<>();
         try {
             JSONObject jsonObject = OsvDataSingleton.getDataJsonObject();
-            JSONArray cveArray = (JSONArray) jsonObject.get(gav);
-            if (cveArray != null) {
-                for (Object vulnerability : cveArray) {
-                    JSONObject vulnerabilityJsonObject = (JSONObject) vulnerability;
-                    Map<String, String> cveMap = new HashMap();
-                    cveMap.put("name", (String) vulnerabilityJsonObject.get("name"));
-                    cveMap.put("cwe", (String) vulnerabilityJsonObject.get("cwe_ids"));
-                    cveMap.put("severity", (String) vulnerabilityJsonObject.get("severity"));
-                    resultSet.add(cveMap);
-                }
+            for (String nodeId : nodeIds) {
+                cveByRelease.put(nodeId, getCveFromGav(jsonObject, nodeId));
             }
         } catch (IOException | ParseException e) {
             e.printStackTrace();
+            for (String nodeId : nodeIds) {
+                cveByRelease.put(nodeId, new HashSet<>());
+            }
+        }
+        return cveByRelease;
+    }
+
+    private static Set<Map<String, String>> getCveFromGav(JSONObject jsonObject, String gav){
+        Set<Map<String, String>> resultSet = new HashSet<>();
+        JSONArray cveArray = (JSONArray) jsonObject.get(gav);
+        if (cveArray != null) {
+            for (Object vulnerability : cveArray) {
+                JSONObject vulnerabilityJsonObject = (JSONObject) vulnerability;
+                Map<String, String> cveMap = new HashMap();
+                cveMap.put("name", (String) vulnerabilityJsonObject.get("name"));
+                cveMap.put("cwe", (String) vulnerabilityJsonObject.get("cwe_ids"));
+                cveMap.put("severity", (String) vulnerabilityJsonObject.get("severity"));
+                resultSet.add(cveMap);
+            }
         }
         return resultSet;
     }
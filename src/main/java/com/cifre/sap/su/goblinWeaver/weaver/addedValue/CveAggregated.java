@@ -1,6 +1,7 @@
 package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
 
-import java.util.*;
+import java.util.Map;
+import java.util.Set;
 
 public class CveAggregated extends Cve implements AggregateValue<Set<Map<String, String>>>{
 
@@ -15,14 +16,23 @@ public class CveAggregated extends Cve implements AggregateValue<Set<Map<String,
 
     @Override
     public void computeValue() {
-        super.value = computeAggregatedValue(nodeId, new HashSet<>());
+        super.value = computeAggregatedValue();
+    }
+
+    @Override
+    public Set<Map<String, String>> stringToValue(String jsonString) {
+        // Values stored before interning are still read as JSON
+        return InternedSet.isInterned(jsonString) ? InternedSet.deserialize(jsonString) : super.stringToValue(jsonString);
+    }
+
+    @Override
+    public String valueToString(Set<Map<String, String>> value) {
+        return InternedSet.of(value).serialize();
     }
 
     @Override
     public Set<Map<String, String>> mergeValue(Set<Map<String, String>> computedValue, Set<Map<String, String>> computeAggregatedValue) {
-        Set<Map<String, String>> mergedSet = new HashSet<>(computedValue);
-        mergedSet.addAll(computeAggregatedValue);
-        return mergedSet;
+        return InternedSet.union(computedValue, computeAggregatedValue);
     }
 
     @Override
@@ -32,6 +42,6 @@ public class CveAggregated extends Cve implements AggregateValue<Set<Map<String,
 
     @Override
     public Set<Map<String, String>> getZeroValue() {
-        return new HashSet<>();
+        return InternedSet.empty();
     }
 }
@@ -7,6 +7,7 @@ import com.cifre.sap.su.goblinWeaver.graphEntities.ValueObject;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -62,4 +63,22 @@ public class Freshness extends AbstractAddedValue<Map<String, String>>{
         }
         return freshnessMap;
     }
+
+    /**
+     * Freshness of all releases with one query, releases without newer release get zero values.
+     */
+    public static Map<String, Map<String, String>> computeAll(Collection<String> nodeIds){
+        Map<String, Map<String, String>> freshnessByRelease = new HashMap<>();
+        GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
+        for (Map<String, Object> row : gdb.executeRowQuery(gdb.getQueryDictionary().getReleasesFreshness(nodeIds))) {
+            Map<String, String> freshnessMap = new HashMap<>();
+            freshnessMap.put("numberMissedRelease", String.valueOf(row.get("numberMissedRelease")));
+            freshnessMap.put("outdatedTimeInMs", row.get("outdatedTimeInMs") == null ? "0" : String.valueOf(row.get("outdatedTimeInMs")));
+            freshnessByRelease.put((String) row.get("releaseId"), freshnessMap);
+        }
+        for (String nodeId : nodeIds) {
+            freshnessByRelease.computeIfAbsent(nodeId, k -> new HashMap<>(Map.of("numberMissedRelease", "0", "outdatedTimeInMs", "0")));
+        }
+        return freshnessByRelease;
+    }
 }
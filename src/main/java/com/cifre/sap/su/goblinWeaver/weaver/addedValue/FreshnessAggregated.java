@@ -15,7 +15,7 @@ public class FreshnessAggregated extends Freshness  implements AggregateValue<Ma
 
     @Override
     public void computeValue() {
-        super.value = computeAggregatedValue(nodeId, new HashSet<>());
+        super.value = computeAggregatedValue();
     }
 
 
@@ -0,0 +1,188 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import com.cifre.sap.su.goblinWeaver.utils.ConstantProperties;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global dictionary of the vulnerability and SBOM entries, each entry gets an integer id used in {@link InternedSet} bitmaps.
+ * The dictionary is append-only and saved in a text file: the epoch on the first line, then one JSON entry per line,
+ * the line number being the id. New entries are buffered and written at the latest when a set referring to them is
+ * serialized ({@link #checkpoint()}) or at shutdown, so a persisted bitmap never refers to an unsaved id.
+ * If the file is lost or unreadable a new epoch starts, and values of older epochs are stale.
+ */
+public class InternedEntries {
+    private static final int MAX_PENDING_CHARS = 1 << 20;
+    private static InternedEntries instance;
+    private final Path entriesFile;
+    private final Map<Map<String, String>, Integer> ids = new ConcurrentHashMap<>();
+    // Grown by doubling, the array is published after each write so readers see every returned id
+    private volatile Map<String, String>[] entries = newEntries(1024);
+    private int size;
+    private String epoch;
+    private BufferedWriter writer;
+    // Lines of the new entries not written yet
+    private final StringBuilder pendingLines = new StringBuilder();
+    private volatile boolean dirty;
+
+    InternedEntries(Path entriesFile) {
+        this.entriesFile = entriesFile;
+        try {
+            if (!load()) {
+                reset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::checkpoint, "interned-entries-checkpoint"));
+    }
+
+    public static InternedEntries getInstance() {
+        if (instance == null) {
+            synchronized (InternedEntries.class) {
+                if (instance == null) {
+                    instance = new InternedEntries(Path.of(System.getProperty("internedEntriesFile", ConstantProperties.internedEntriesFile)));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the id of the entry, added to the dictionary if it is new
+     */
+    public int getId(Map<String, String> entry) {
+        Integer id = ids.get(entry);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(entry);
+            if (id != null) {
+                return id;
+            }
+            Map<String, String> storedEntry = Collections.unmodifiableMap(new HashMap<>(entry));
+            pendingLines.append(new JSONObject(storedEntry).toJSONString()).append('\n');
+            dirty = true;
+            if (pendingLines.length() >= MAX_PENDING_CHARS) {
+                writePendingLines();
+            }
+            Map<String, String>[] currentEntries = entries;
+            if (size == currentEntries.length) {
+                currentEntries = Arrays.copyOf(currentEntries, size * 2);
+            }
+            id = size++;
+            currentEntries[id] = storedEntry;
+            entries = currentEntries;
+            ids.put(storedEntry, id);
+            return id;
+        }
+    }
+
+    /**
+     * Writes the buffered entries, to be called before a value holding their ids is persisted.
+     */
+    public void checkpoint() {
+        if (!dirty) {
+            return;
+        }
+        synchronized (this) {
+            writePendingLines();
+        }
+    }
+
+    private void writePendingLines() {
+        if (pendingLines.isEmpty()) {
+            return;
+        }
+        try {
+            writer.write(pendingLines.toString());
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingLines.setLength(0);
+        dirty = false;
+    }
+
+    /**
+     * @return the id of the entry, or -1 if it is not in the dictionary
+     */
+    public int findId(Object entry) {
+        return entry == null ? -1 : ids.getOrDefault(entry, -1);
+    }
+
+    public Map<String, String> getEntry(int id) {
+        return entries[id];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String>[] newEntries(int capacity) {
+        return new Map[capacity];
+    }
+
+    private boolean load() throws IOException {
+        if (!Files.exists(entriesFile)) {
+            return false;
+        }
+        List<Map<String, String>> loadedEntries = new ArrayList<>();
+        String loadedEpoch;
+        try (BufferedReader reader = Files.newBufferedReader(entriesFile, StandardCharsets.UTF_8)) {
+            loadedEpoch = reader.readLine();
+            JSONParser parser = new JSONParser();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject jsonEntry = (JSONObject) parser.parse(line);
+                Map<String, String> entry = new HashMap<>();
+                for (Object key : jsonEntry.keySet()) {
+                    Object value = jsonEntry.get(key);
+                    entry.put((String) key, value == null ? null : value.toString());
+                }
+                loadedEntries.add(Collections.unmodifiableMap(entry));
+            }
+        } catch (ParseException e) {
+            System.out.println("Unreadable interned entries file, a new epoch starts");
+            return false;
+        }
+        if (loadedEpoch == null || loadedEpoch.isEmpty()) {
+            return false;
+        }
+        epoch = loadedEpoch;
+        size = loadedEntries.size();
+        Map<String, String>[] loadedArray = newEntries(Math.max(1024, Integer.highestOneBit(size) * 2));
+        for (int id = 0; id < size; id++) {
+            loadedArray[id] = loadedEntries.get(id);
+            ids.put(loadedEntries.get(id), id);
+        }
+        entries = loadedArray;
+        writer = Files.newBufferedWriter(entriesFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        return true;
+    }
+
+    private void reset() throws IOException {
+        if (entriesFile.getParent() != null) {
+            Files.createDirectories(entriesFile.getParent());
+        }
+        epoch = Long.toString(System.currentTimeMillis(), 36);
+        entries = newEntries(1024);
+        size = 0;
+        ids.clear();
+        writer = Files.newBufferedWriter(entriesFile, StandardCharsets.UTF_8);
+        writer.write(epoch);
+        writer.newLine();
+        writer.flush();
+    }
+}
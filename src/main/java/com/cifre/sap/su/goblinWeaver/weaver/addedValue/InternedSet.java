@@ -0,0 +1,108 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of entries held as a compressed bitmap of their ids in {@link InternedEntries}.
+ * Unions are bitmap ORs, entries are only expanded to maps when the set is iterated, to be serialized.
+ * Stored as "rb1:epoch:base64 bitmap".
+ */
+public class InternedSet extends AbstractSet<Map<String, String>> {
+    private static final String PREFIX = "rb1:";
+    private final RoaringBitmap ids;
+
+    private InternedSet(RoaringBitmap ids) {
+        this.ids = ids;
+    }
+
+    public static InternedSet empty() {
+        return new InternedSet(new RoaringBitmap());
+    }
+
+    public static InternedSet of(Set<Map<String, String>> entries) {
+        if (entries instanceof InternedSet internedSet) {
+            return internedSet;
+        }
+        InternedEntries internedEntries = InternedEntries.getInstance();
+        RoaringBitmap ids = new RoaringBitmap();
+        for (Map<String, String> entry : entries) {
+            ids.add(internedEntries.getId(entry));
+        }
+        return new InternedSet(ids);
+    }
+
+    public static InternedSet union(Set<Map<String, String>> first, Set<Map<String, String>> second) {
+        return new InternedSet(RoaringBitmap.or(of(first).ids, of(second).ids));
+    }
+
+    public static boolean isInterned(String storedValue) {
+        return storedValue.startsWith(PREFIX);
+    }
+
+    /**
+     * @return true if the value was stored with another dictionary epoch, its ids can't be read anymore
+     */
+    public static boolean isStale(String storedValue) {
+        return isInterned(storedValue) && !storedValue.startsWith(PREFIX + InternedEntries.getInstance().getEpoch() + ":");
+    }
+
+    public static InternedSet deserialize(String storedValue) {
+        String bitmap = storedValue.substring(storedValue.indexOf(':', PREFIX.length()) + 1);
+        RoaringBitmap ids = new RoaringBitmap();
+        try {
+            ids.deserialize(ByteBuffer.wrap(Base64.getDecoder().decode(bitmap)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new InternedSet(ids);
+    }
+
+    public String serialize() {
+        RoaringBitmap optimizedIds = ids.clone();
+        optimizedIds.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(optimizedIds.serializedSizeInBytes());
+        optimizedIds.serialize(buffer);
+        InternedEntries internedEntries = InternedEntries.getInstance();
+        // The serialized value may be persisted, its ids must be saved first
+        internedEntries.checkpoint();
+        return PREFIX + internedEntries.getEpoch() + ":" + Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    @Override
+    public Iterator<Map<String, String>> iterator() {
+        PeekableIntIterator idIterator = ids.getIntIterator();
+        InternedEntries internedEntries = InternedEntries.getInstance();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return idIterator.hasNext();
+            }
+
+            @Override
+            public Map<String, String> next() {
+                return internedEntries.getEntry(idIterator.next());
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int id = InternedEntries.getInstance().findId(o);
+        return id >= 0 && ids.contains(id);
+    }
+
+    @Override
+    public int size() {
+        return ids.getCardinality();
+    }
+}
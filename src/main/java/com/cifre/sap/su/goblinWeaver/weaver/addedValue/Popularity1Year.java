@@ -5,7 +5,7 @@ import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseSingleton;
 import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
 import com.cifre.sap.su.goblinWeaver.graphEntities.ValueObject;
 
-import java.util.Iterator;
+import java.util.*;
 
 public class Popularity1Year extends AbstractAddedValue<Integer>{
 
@@ -49,4 +49,19 @@ public class Popularity1Year extends AbstractAddedValue<Integer>{
         }
         return popularity;
     }
+
+    /**
+     * One year popularity of all releases with one query, releases without dependent get 0.
+     */
+    public static Map<String, Integer> computeAll(Collection<String> nodeIds){
+        Map<String, Integer> popularityByRelease = new HashMap<>();
+        GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
+        for (Map<String, Object> row : gdb.executeRowQuery(gdb.getQueryDictionary().getReleasesPopularity1Year(nodeIds))) {
+            popularityByRelease.put((String) row.get("releaseId"), ((Number) row.get("popularity")).intValue());
+        }
+        for (String nodeId : nodeIds) {
+            popularityByRelease.putIfAbsent(nodeId, 0);
+        }
+        return popularityByRelease;
+    }
 }
@@ -1,7 +1,5 @@
 package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
 
-import java.util.HashSet;
-
 public class Popularity1YearAggregated extends Popularity1Year implements AggregateValue<Integer>{
 
     public Popularity1YearAggregated(String nodeId) {
@@ -15,7 +13,7 @@ public class Popularity1YearAggregated extends Popularity1Year implements Aggreg
 
     @Override
     public void computeValue() {
-        super.value = computeAggregatedValue(nodeId, new HashSet<>());
+        super.value = computeAggregatedValue();
     }
 
     @Override
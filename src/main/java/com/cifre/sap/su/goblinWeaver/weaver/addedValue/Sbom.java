@@ -1,17 +1,15 @@
 package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import com.cifre.sap.su.goblinWeaver.weaver.sbom.FileListingSourceSingleton;
+import com.cifre.sap.su.goblinWeaver.weaver.sbom.HttpFileListingSource;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class has functions to aggregate entries with SBOM information.
@@ -21,32 +19,45 @@ public class Sbom extends AbstractAddedValue<Set<Map<String, String>>> {
     private static final List<String> SBOM_KEYWORDS = Arrays.asList("cyclonedx", "spdx");
     private static final List<String> FILE_EXTENSIONS = Arrays.asList("json", "xml");
     private static final List<String> HASH_EXTENSIONS = Arrays.asList("md5", "sha1", "sha256", "sha512");
-    private final OkHttpClient httpConnector;
-    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private static final Logger log = LoggerFactory.getLogger(Sbom.class);
 
     public Sbom(String nodeId) {
         super(nodeId);
-        httpConnector = new OkHttpClient.Builder()
-                .connectTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(120, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .build();
+    }
+
+    /**
+     * Probes the releases all at once, the shared client limits the requests in flight.
+     */
+    public static Map<String, Set<Map<String, String>>> computeAll(Collection<String> nodeIds) {
+        Map<String, CompletableFuture<Set<Map<String, String>>>> probes = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            probes.put(nodeId, getSbomLinksAsync(nodeId));
+        }
+        Map<String, Set<Map<String, String>>> sbomByRelease = new HashMap<>();
+        probes.forEach((nodeId, probe) -> sbomByRelease.put(nodeId, probe.join()));
+        return sbomByRelease;
     }
 
     /**
      * Get the Sbom links and standards from maven central if they exist.
      */
     public Set<Map<String, String>> getSbomLinks(String gav) {
-        Set<Map<String, String>> sbomLinkSet = new HashSet<>();
+        return getSbomLinksAsync(gav).join();
+    }
+
+    private static CompletableFuture<Set<Map<String, String>>> getSbomLinksAsync(String gav) {
         String[] splitedGav = gav.split(":");
-        if (splitedGav.length == 3) {
-            String dependencyGroupID = splitedGav[0];
-            String dependencyArtifactID = splitedGav[1];
-            String releaseVersion = splitedGav[2];
-            // Construct base URL
-            String baseUrl = constructBaseUrl(dependencyGroupID, dependencyArtifactID, releaseVersion);
-            // Fetch the directory listing for the Maven artifact's version folder
-            List<String> availableFiles = getAvailableFiles(baseUrl);
+        if (splitedGav.length != 3) {
+            return CompletableFuture.completedFuture(new HashSet<>());
+        }
+        String dependencyGroupID = splitedGav[0];
+        String dependencyArtifactID = splitedGav[1];
+        String releaseVersion = splitedGav[2];
+        // Construct base URL
+        String baseUrl = HttpFileListingSource.getFolderUrl(dependencyGroupID, dependencyArtifactID, releaseVersion);
+        // Fetch the file listing of the Maven artifact's version folder
+        return FileListingSourceSingleton.getInstance().getFiles(dependencyGroupID, dependencyArtifactID, releaseVersion).thenApply(availableFiles -> {
+            Set<Map<String, String>> sbomLinkSet = new HashSet<>();
             // Prepare the final result map to hold sbom data
             Map<String, String> sbomLinks = new HashMap<>();
             for (String fileName : availableFiles) {
@@ -66,58 +77,23 @@ public class Sbom extends AbstractAddedValue<Set<Map<String, String>>> {
                 }
             }
             sbomLinkSet.add(sbomLinks);
-        }
-        return sbomLinkSet;
+            return sbomLinkSet;
+        });
     }
 
     /**
-     * Constructs the base URL for the given groupId, artifactId, and version.
+     * @return true if the file name contains one of the SBOM keywords, SBOM files and their signature and hash files match
      */
-    private String constructBaseUrl(String groupId, String artifactId, String version) {
-        String groupPath = groupId.replace('.', '/');
-        return String.format("https://repo1.maven.org/maven2/%s/%s/%s/",
-                groupPath, artifactId, version);
-    }
-
-    /**
-     * Retrieves the list of available files from the base URL.
-     */
-    private List<String> getAvailableFiles(String baseUrl) {
-        List<String> fileList = new ArrayList<>();
-        Request request = new Request.Builder().url(baseUrl).build();
-        try (Response response = httpConnector.newCall(request).execute()) {
-            if (response.isSuccessful() && response.body() != null) {
-                String htmlContent = response.body().string();
-                fileList = parseHtmlForFileNames(htmlContent);
-            }
-        } catch (IOException e) {
-            log.error("Error fetching file list from URL: {}", baseUrl, e);
-        }
-        return fileList;
-    }
-
-    /**
-     * Parses the HTML content to extract file names.
-     */
-    private List<String> parseHtmlForFileNames(String htmlContent) {
-        List<String> fileNames = new ArrayList<>();
-        String regex = "href=\"([^\"]+)\"";
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(regex);
-        java.util.regex.Matcher matcher = pattern.matcher(htmlContent);
-        while (matcher.find()) {
-            String fileName = matcher.group(1);
-            if (!fileName.endsWith("/")) {
-                fileNames.add(fileName);
-            }
-        }
-        return fileNames;
+    public static boolean isSbomRelatedFile(String fileName) {
+        String lowerCaseFileName = fileName.toLowerCase();
+        return SBOM_KEYWORDS.stream().anyMatch(lowerCaseFileName::contains);
     }
 
     /**
      * Checks if the file name contains any of the SBOM keywords and ends with a supported extension.
      * Returns a list of SBOM standards ("spdx", "cyclonedx") if matched, otherwise an empty list.
      */
-    private String matchesSbom(String fileName) {
+    private static String matchesSbom(String fileName) {
         for (String keyword : SBOM_KEYWORDS) {
             for (String extension : FILE_EXTENSIONS) {
                 if (fileName.toLowerCase().contains(keyword) && fileName.toLowerCase().endsWith("." + extension)) {
@@ -131,7 +107,7 @@ public class Sbom extends AbstractAddedValue<Set<Map<String, String>>> {
     /**
      * Retrieves the types of hash files available for the given SBOM file.
      */
-    private List<String> getAvailableHashes(String fileName, List<String> availableFiles) {
+    private static List<String> getAvailableHashes(String fileName, List<String> availableFiles) {
         List<String> foundHashes = new ArrayList<>();
         for (String hashExt : HASH_EXTENSIONS) {
             if (availableFiles.contains(fileName + "." + hashExt)) {
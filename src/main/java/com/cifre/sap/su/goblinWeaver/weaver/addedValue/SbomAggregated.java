@@ -1,6 +1,5 @@
 package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -17,14 +16,23 @@ public class SbomAggregated extends Sbom implements AggregateValue<Set<Map<Strin
 
     @Override
     public void computeValue() {
-        super.value = computeAggregatedValue(nodeId, new HashSet<>());
+        super.value = computeAggregatedValue();
+    }
+
+    @Override
+    public Set<Map<String, String>> stringToValue(String jsonString) {
+        // Values stored before interning are still read as JSON
+        return InternedSet.isInterned(jsonString) ? InternedSet.deserialize(jsonString) : super.stringToValue(jsonString);
+    }
+
+    @Override
+    public String valueToString(Set<Map<String, String>> value) {
+        return InternedSet.of(value).serialize();
     }
 
     @Override
     public Set<Map<String, String>> mergeValue(Set<Map<String, String>> computedValue, Set<Map<String, String>> computeAggregatedValue) {
-        Set<Map<String, String>> mergedSet = new HashSet<>(computedValue);
-        mergedSet.addAll(computeAggregatedValue);
-        return mergedSet;
+        return InternedSet.union(computedValue, computeAggregatedValue);
     }
 
     @Override
@@ -34,6 +42,6 @@ public class SbomAggregated extends Sbom implements AggregateValue<Set<Map<Strin
 
     @Override
     public Set<Map<String, String>> getZeroValue() {
-        return new HashSet<>();
+        return InternedSet.empty();
     }
 }
@@ -43,6 +43,29 @@ public class Speed extends AbstractAddedValue<Double> {
         for(ValueObject value : graph.getGraphValues()){
             releasesTimeStampSet.add(Long.parseLong(value.getValue()));
         }
+        return computeSpeed(releasesTimeStampSet);
+    }
+
+    /**
+     * Speed of all artifacts with one query, artifacts without releases get 0.
+     */
+    public static Map<String, Double> computeAll(Collection<String> nodeIds){
+        Map<String, Double> speedByArtifact = new HashMap<>();
+        GraphDatabaseInterface gdb = GraphDatabaseSingleton.getInstance();
+        for (Map<String, Object> row : gdb.executeRowQuery(gdb.getQueryDictionary().getArtifactsRhythm(nodeIds))) {
+            TreeSet<Long> releasesTimeStampSet = new TreeSet<>();
+            for (Object timestamp : (List<?>) row.get("timestamps")) {
+                releasesTimeStampSet.add(((Number) timestamp).longValue());
+            }
+            speedByArtifact.put((String) row.get("artifactId"), computeSpeed(releasesTimeStampSet));
+        }
+        for (String nodeId : nodeIds) {
+            speedByArtifact.putIfAbsent(nodeId, 0.0);
+        }
+        return speedByArtifact;
+    }
+
+    private static double computeSpeed(TreeSet<Long> releasesTimeStampSet){
         if(releasesTimeStampSet.size() < 2){
             return 0;
         }
@@ -0,0 +1,15 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lists the files published in the folder of a release in the Maven repository.
+ */
+public interface FileListingSource {
+
+    /**
+     * @return the names of the files of the release folder, empty if the release is unknown
+     */
+    CompletableFuture<List<String>> getFiles(String groupId, String artifactId, String version);
+}
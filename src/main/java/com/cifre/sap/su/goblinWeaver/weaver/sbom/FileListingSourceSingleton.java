@@ -0,0 +1,53 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import com.cifre.sap.su.goblinWeaver.utils.ConstantProperties;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.Sbom;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class FileListingSourceSingleton {
+
+    private static FileListingSource fileListingSource;
+
+    private FileListingSourceSingleton() {
+        // private constructor to prevent instantiation
+    }
+
+    public static FileListingSource getInstance() {
+        if (fileListingSource == null) {
+            synchronized (FileListingSourceSingleton.class) {
+                if (fileListingSource == null) {
+                    if ("index".equals(System.getProperty("sbomFileSource"))) {
+                        try {
+                            fileListingSource = SbomFileIndex.load(getSbomFileIndexPath());
+                        } catch (IOException e) {
+                            System.out.println("Fail to load SBOM file index " + getSbomFileIndexPath() + ", using the Maven repository listings:\n" + e.getMessage());
+                            fileListingSource = new HttpFileListingSource();
+                        }
+                    } else {
+                        fileListingSource = new HttpFileListingSource();
+                    }
+                }
+            }
+        }
+        return fileListingSource;
+    }
+
+    /**
+     * Builds the index used by the "index" SBOM file source from the repository file listing given by sbomFileListing.
+     */
+    public static void buildSbomFileIndex() throws IOException {
+        String listingPath = System.getProperty("sbomFileListing");
+        if (listingPath == null) {
+            throw new IllegalArgumentException("The sbomFileListing property must give the repository file listing");
+        }
+        SbomFileIndexBuilder builder = new SbomFileIndexBuilder(Sbom::isSbomRelatedFile);
+        builder.addListing(Path.of(listingPath));
+        builder.write(getSbomFileIndexPath());
+    }
+
+    private static Path getSbomFileIndexPath() {
+        return Path.of(System.getProperty("sbomFileIndexPath", ConstantProperties.dataFolderPath + "/sbomFiles.idx"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import com.cifre.sap.su.goblinWeaver.utils.MavenCentralClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the HTML directory listing of the release folder, one request per release.
+ */
+public class HttpFileListingSource implements FileListingSource {
+    private static final Pattern HREF_PATTERN = Pattern.compile("href=\"([^\"]+)\"");
+    private static final Logger log = LoggerFactory.getLogger(HttpFileListingSource.class);
+
+    @Override
+    public CompletableFuture<List<String>> getFiles(String groupId, String artifactId, String version) {
+        String folderUrl = getFolderUrl(groupId, artifactId, version);
+        return MavenCentralClient.getInstance().getAsync(folderUrl)
+                .thenApply(htmlContent -> htmlContent != null ? parseHtmlForFileNames(htmlContent) : new ArrayList<String>())
+                .exceptionally(e -> {
+                    log.error("Error fetching file list from URL: {}", folderUrl, e);
+                    return new ArrayList<>();
+                });
+    }
+
+    /**
+     * Constructs the folder URL for the given groupId, artifactId, and version.
+     * The HTTP client is not created, so the URL can be built when the files come from the index.
+     */
+    public static String getFolderUrl(String groupId, String artifactId, String version) {
+        String groupPath = groupId.replace('.', '/');
+        return String.format("%s%s/%s/%s/",
+                MavenCentralClient.getRepositoryUrl(), groupPath, artifactId, version);
+    }
+
+    /**
+     * Parses the HTML content to extract file names.
+     */
+    private static List<String> parseHtmlForFileNames(String htmlContent) {
+        List<String> fileNames = new ArrayList<>();
+        Matcher matcher = HREF_PATTERN.matcher(htmlContent);
+        while (matcher.find()) {
+            String fileName = matcher.group(1);
+            if (!fileName.endsWith("/")) {
+                fileNames.add(fileName);
+            }
+        }
+        return fileNames;
+    }
+}
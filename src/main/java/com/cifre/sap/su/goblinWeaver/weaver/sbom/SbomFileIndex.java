@@ -0,0 +1,131 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only, memory-mapped index of the SBOM related files of the releases, sorted by groupId:artifactId:version
+ * in byte order. Files of a release are a contiguous range of the file strings, lookups are binary searches.
+ * <p>
+ * File layout (big endian), see {@link SbomFileIndexBuilder}:
+ * header | releaseFirstFile int[R+1] | stringOffsets int[R+F+1] | stringBytes byte[]
+ * The R first strings are the release ids, the F next ones the file names.
+ */
+public class SbomFileIndex implements FileListingSource {
+    static final int MAGIC = 0x47575349; // "GWSI"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private final int releaseCount;
+    private final int fileCount;
+    private final IntBuffer releaseFirstFile;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+
+    private SbomFileIndex(FileChannel channel) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a SBOM file index");
+        }
+        int formatVersion = header.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported SBOM file index version " + formatVersion + ", expected " + FORMAT_VERSION);
+        }
+        releaseCount = header.getInt();
+        fileCount = header.getInt();
+        long stringBytesLength = header.getLong();
+
+        long position = HEADER_SIZE;
+        releaseFirstFile = map(channel, position, 4L * (releaseCount + 1)).asIntBuffer();
+        position += 4L * (releaseCount + 1);
+        stringOffsets = map(channel, position, 4L * (releaseCount + fileCount + 1)).asIntBuffer();
+        position += 4L * (releaseCount + fileCount + 1);
+        stringBytes = map(channel, position, stringBytesLength);
+    }
+
+    /**
+     * Maps the release offsets and the names, the names are decoded by the lookups only.
+     */
+    public static SbomFileIndex load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            SbomFileIndex index = new SbomFileIndex(channel);
+            System.out.println("SBOM file index loaded: " + index.releaseCount + " releases, " + index.fileCount + " files");
+            return index;
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("SBOM file index section too large to be mapped: " + size + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * The index is read on the calling thread, the returned future is already complete.
+     */
+    @Override
+    public CompletableFuture<List<String>> getFiles(String groupId, String artifactId, String version) {
+        return CompletableFuture.completedFuture(getFiles(groupId + ":" + artifactId + ":" + version));
+    }
+
+    /**
+     * @return the SBOM related files of the release, empty if it has none
+     */
+    public List<String> getFiles(String releaseId) {
+        List<String> files = new ArrayList<>();
+        int release = findRelease(releaseId.getBytes(StandardCharsets.UTF_8));
+        if (release >= 0) {
+            for (int file = releaseFirstFile.get(release); file < releaseFirstFile.get(release + 1); file++) {
+                files.add(getString(releaseCount + file));
+            }
+        }
+        return files;
+    }
+
+    private int findRelease(byte[] target) {
+        int low = 0;
+        int high = releaseCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(middle, target);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private String getString(int index) {
+        int start = stringOffsets.get(index);
+        byte[] bytes = new byte[stringOffsets.get(index + 1) - start];
+        stringBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compareString(int index, byte[] target) {
+        int start = stringOffsets.get(index);
+        int length = stringOffsets.get(index + 1) - start;
+        int common = Math.min(length, target.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(stringBytes.get(start + i) & 0xff, target[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, target.length);
+    }
+}
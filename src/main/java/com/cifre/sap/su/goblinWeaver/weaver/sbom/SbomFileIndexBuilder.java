@@ -0,0 +1,129 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds a {@link SbomFileIndex} from a listing of the files of a Maven repository, one path relative to the
+ * repository root per line (e.g. org/example/lib/1.0/lib-1.0-cyclonedx.json), optionally gzipped.
+ * Only the first token of a line is read, a leading "./" or "maven2/" is ignored.
+ * Only the files accepted by the filter are kept, releases without such file are left out of the index.
+ */
+public class SbomFileIndexBuilder {
+    private final Predicate<String> fileFilter;
+    private final Map<String, List<String>> releaseFiles = new HashMap<>();
+    private long skippedLines = 0;
+
+    public SbomFileIndexBuilder(Predicate<String> fileFilter) {
+        this.fileFilter = fileFilter;
+    }
+
+    public void addListing(Path listingPath) throws IOException {
+        InputStream in = Files.newInputStream(listingPath);
+        if (listingPath.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 20)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                addPath(line);
+            }
+        }
+    }
+
+    public void addPath(String line) {
+        String[] tokens = line.trim().split("\\s+", 2);
+        String path = tokens[0];
+        if (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (path.startsWith("maven2/")) {
+            path = path.substring("maven2/".length());
+        }
+        String[] segments = path.split("/");
+        if (segments.length < 4) {
+            skippedLines++;
+            return;
+        }
+        String fileName = segments[segments.length - 1];
+        if (!fileFilter.test(fileName)) {
+            return;
+        }
+        String groupId = String.join(".", Arrays.copyOfRange(segments, 0, segments.length - 3));
+        String releaseId = groupId + ":" + segments[segments.length - 3] + ":" + segments[segments.length - 2];
+        releaseFiles.computeIfAbsent(releaseId, k -> new ArrayList<>()).add(fileName);
+    }
+
+    /**
+     * Sorts the releases and writes the index to path.tmp, renamed to path once complete: an interrupted build keeps the previous index.
+     */
+    public void write(Path path) throws IOException {
+        List<byte[]> releaseIds = new ArrayList<>();
+        Map<byte[], List<String>> filesByRelease = new IdentityHashMap<>();
+        for (Map.Entry<String, List<String>> entry : releaseFiles.entrySet()) {
+            byte[] releaseId = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            releaseIds.add(releaseId);
+            filesByRelease.put(releaseId, entry.getValue());
+        }
+        releaseIds.sort(Arrays::compareUnsigned);
+        List<byte[]> fileNames = new ArrayList<>();
+        int[] releaseFirstFile = new int[releaseIds.size() + 1];
+        for (int release = 0; release < releaseIds.size(); release++) {
+            releaseFirstFile[release] = fileNames.size();
+            for (String fileName : filesByRelease.get(releaseIds.get(release))) {
+                fileNames.add(fileName.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        releaseFirstFile[releaseIds.size()] = fileNames.size();
+        long stringBytesLength = 0;
+        for (byte[] string : releaseIds) {
+            stringBytesLength += string.length;
+        }
+        for (byte[] string : fileNames) {
+            stringBytesLength += string.length;
+        }
+        if (stringBytesLength > Integer.MAX_VALUE) {
+            throw new IOException("Too many files to be indexed: " + stringBytesLength + " bytes of names");
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), 1 << 20))) {
+            out.writeInt(SbomFileIndex.MAGIC);
+            out.writeInt(SbomFileIndex.FORMAT_VERSION);
+            out.writeInt(releaseIds.size());
+            out.writeInt(fileNames.size());
+            out.writeLong(stringBytesLength);
+            for (int firstFile : releaseFirstFile) {
+                out.writeInt(firstFile);
+            }
+            int offset = 0;
+            for (byte[] string : releaseIds) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            for (byte[] string : fileNames) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : releaseIds) {
+                out.write(string);
+            }
+            for (byte[] string : fileNames) {
+                out.write(string);
+            }
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("SBOM file index written: " + releaseIds.size() + " releases, " + fileNames.size() + " files, "
+                + skippedLines + " lines skipped");
+    }
+}
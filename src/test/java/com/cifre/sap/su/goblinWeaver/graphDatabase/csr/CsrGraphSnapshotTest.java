@@ -0,0 +1,125 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.csr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Snapshots written by {@link CsrSnapshotBuilder} and mapped back by {@link CsrGraphSnapshot}.
+ */
+class CsrGraphSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Artifacts and releases are added out of order, g:b:1.0 depends on g:a:1.0 and on a missing version of g:c.
+     */
+    private Path writeSnapshot() throws IOException {
+        CsrSnapshotBuilder builder = new CsrSnapshotBuilder();
+        builder.addArtifact("g:b", true);
+        builder.addRelease("g:b", "1.0", 30);
+        builder.addRelease("g:a", "2.0", 20);
+        builder.addRelease("g:a", "1.0", 10);
+        builder.addRelease("g:a", "3.0", 15);
+        builder.addArtifact("g:a", true);
+        builder.addArtifact("g:c", false);
+        builder.addDependency("g:b:1.0", "g:a", "1.0", "compile");
+        builder.addDependency("g:b:1.0", "g:c", "9.9", "test");
+        builder.addDependency("g:unknown:1.0", "g:a", "1.0", "compile");
+        Path path = directory.resolve("graph.csr");
+        builder.write(path);
+        return path;
+    }
+
+    @Test
+    void lookupsReadTheWrittenGraph() throws IOException {
+        CsrGraphSnapshot snapshot = CsrGraphSnapshot.load(writeSnapshot());
+        assertEquals(3, snapshot.getArtifactCount());
+        assertEquals(4, snapshot.getReleaseCount());
+
+        int artifactA = snapshot.findArtifact("g:a");
+        int artifactC = snapshot.findArtifact("g:c");
+        assertEquals(0, artifactA);
+        assertEquals("g:a", snapshot.getArtifactId(artifactA));
+        assertTrue(snapshot.isArtifactFound(artifactA));
+        assertFalse(snapshot.isArtifactFound(artifactC));
+        assertEquals(CsrGraphSnapshot.NOT_FOUND, snapshot.findArtifact("g:missing"));
+
+        int releaseB = snapshot.findRelease("g:b:1.0");
+        assertEquals("g:b:1.0", snapshot.getReleaseId(releaseB));
+        assertEquals(snapshot.findArtifact("g:b"), snapshot.getReleaseArtifact(releaseB));
+        assertEquals(30, snapshot.getReleaseTimestamp(releaseB));
+        assertEquals(CsrGraphSnapshot.NOT_FOUND, snapshot.findRelease("g:a:4.0"));
+        assertEquals(CsrGraphSnapshot.NOT_FOUND, snapshot.findRelease("g:missing:1.0"));
+        assertEquals(CsrGraphSnapshot.NOT_FOUND, snapshot.findRelease("noSeparator"));
+        assertEquals(snapshot.getFirstRelease(artifactC), snapshot.getEndRelease(artifactC));
+    }
+
+    @Test
+    void releasesOfAnArtifactAreSortedByTimestamp() throws IOException {
+        CsrGraphSnapshot snapshot = CsrGraphSnapshot.load(writeSnapshot());
+        int artifactA = snapshot.findArtifact("g:a");
+        List<String> versions = new ArrayList<>();
+        for (int release = snapshot.getFirstRelease(artifactA); release < snapshot.getEndRelease(artifactA); release++) {
+            versions.add(snapshot.getReleaseVersion(release));
+        }
+        assertEquals(List.of("1.0", "3.0", "2.0"), versions);
+    }
+
+    @Test
+    void dependenciesKeepTheirTargetOrNotFound() throws IOException {
+        CsrGraphSnapshot snapshot = CsrGraphSnapshot.load(writeSnapshot());
+        int releaseB = snapshot.findRelease("g:b:1.0");
+        assertEquals(2, snapshot.getEndDependency(releaseB) - snapshot.getFirstDependency(releaseB));
+        int compileDependency = snapshot.getFirstDependency(releaseB);
+        int testDependency = compileDependency + 1;
+        assertEquals(snapshot.findArtifact("g:a"), snapshot.getDependencyArtifact(compileDependency));
+        assertEquals("1.0", snapshot.getDependencyTargetVersion(compileDependency));
+        assertEquals("compile", snapshot.getDependencyScope(compileDependency));
+        assertEquals(snapshot.findRelease("g:a:1.0"), snapshot.getDependencyTargetRelease(compileDependency));
+        assertEquals(snapshot.findArtifact("g:c"), snapshot.getDependencyArtifact(testDependency));
+        assertEquals("test", snapshot.getDependencyScope(testDependency));
+        assertEquals(CsrGraphSnapshot.NOT_FOUND, snapshot.getDependencyTargetRelease(testDependency));
+        // The dependency of an unknown release is skipped
+        int releaseA = snapshot.findRelease("g:a:1.0");
+        assertEquals(snapshot.getFirstDependency(releaseA), snapshot.getEndDependency(releaseA));
+    }
+
+    @Test
+    void noTemporaryFileIsLeft() throws IOException {
+        writeSnapshot();
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("graph.csr")), files.toList());
+        }
+    }
+
+    @Test
+    void badMagicIsRejected() throws IOException {
+        Path path = writeSnapshot();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.writeInt(0x12345678);
+        }
+        IOException exception = assertThrows(IOException.class, () -> CsrGraphSnapshot.load(path));
+        assertEquals("Not a graph snapshot file", exception.getMessage());
+    }
+
+    @Test
+    void otherFormatVersionIsRejected() throws IOException {
+        Path path = writeSnapshot();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(4);
+            file.writeInt(CsrGraphSnapshot.FORMAT_VERSION + 1);
+        }
+        IOException exception = assertThrows(IOException.class, () -> CsrGraphSnapshot.load(path));
+        assertTrue(exception.getMessage().startsWith("Unsupported graph snapshot version"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j;
+
+import com.cifre.sap.su.goblinWeaver.graphDatabase.GraphDatabaseInterface;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Standalone benchmark of the chunked added values lookup against any Neo4j instance, not run by the tests.
+ * For each node count, release ids are sampled from the graph, then {@link Neo4jGraphDatabase#getNodeAddedValues}
+ * is timed once per chunk size, after warm-up runs that fill the query plan cache.
+ * The former lookup, a single "a.id IN $addedValuesIds" query over every node id and added value, is timed as the
+ * "in-list" row of each node count.
+ * <p>
+ * Run from the project root:
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.cifre.sap.su.goblinWeaver.graphDatabase.neo4j.AddedValueLookupBenchmark
+ *   -Dexec.args="bolt://localhost:7687 neo4j password 1000,10000,100000 500,1000,5000,20000"
+ * Optional arguments: comma separated added values (default CVE,FRESHNESS,POPULARITY_1_YEAR) then the number of measured runs (default 5).
+ * Other settings, such as neo4jQueryParallelism, are read from the system properties as in the Weaver.
+ * The Weaver constructor creates the AddedValue id constraint if it is missing, so the user needs the write access.
+ */
+public class AddedValueLookupBenchmark {
+    private static final int WARMUP_RUNS = 2;
+
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.out.println("Usage: AddedValueLookupBenchmark <uri> <user> <password> <nodeCounts> <chunkSizes> [addedValues] [runs]");
+            return;
+        }
+        String uri = args[0];
+        String user = args[1];
+        String password = args[2];
+        List<Integer> nodeCounts = parseIntegers(args[3]);
+        List<Integer> chunkSizes = parseIntegers(args[4]);
+        Set<AddedValueEnum> addedValues = args.length > 5
+                ? Arrays.stream(args[5].split(",")).map(String::trim).map(AddedValueEnum::valueOf).collect(Collectors.toCollection(() -> EnumSet.noneOf(AddedValueEnum.class)))
+                : EnumSet.of(AddedValueEnum.CVE, AddedValueEnum.FRESHNESS, AddedValueEnum.POPULARITY_1_YEAR);
+        int runs = args.length > 6 ? Integer.parseInt(args[6]) : 5;
+
+        List<String> sampledReleaseIds = sampleReleaseIds(uri, user, password, Collections.max(nodeCounts));
+        System.out.println("Sampled " + sampledReleaseIds.size() + " release ids, added values " + addedValues);
+        Map<Integer, GraphDatabaseInterface> databases = new LinkedHashMap<>();
+        for (int chunkSize : chunkSizes) {
+            // The chunk size is read when the database is created
+            System.setProperty("neo4jAddedValueLookupChunkSize", Integer.toString(chunkSize));
+            databases.put(chunkSize, new Neo4jGraphDatabase(uri, user, password));
+        }
+        System.out.println("nodes\tchunkSize\tqueries\tfoundNodes\tminMs\tmedianMs\tmeanMs\tnodesPerSecond");
+        try (Driver driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password))) {
+            for (int nodeCount : nodeCounts) {
+                List<String> nodeIds = sampledReleaseIds.subList(0, Math.min(nodeCount, sampledReleaseIds.size()));
+                measure(nodeIds, "in-list", 1, runs, () -> inListLookup(driver, nodeIds, addedValues).size());
+                for (Map.Entry<Integer, GraphDatabaseInterface> entry : databases.entrySet()) {
+                    GraphDatabaseInterface gdb = entry.getValue();
+                    int queries = (nodeIds.size() + entry.getKey() - 1) / entry.getKey();
+                    measure(nodeIds, entry.getKey().toString(), queries, runs, () -> gdb.getNodeAddedValues(nodeIds, addedValues, NodeType.RELEASE).size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints one row of the table, the lookup returns the number of nodes found.
+     */
+    private static void measure(List<String> nodeIds, String chunkSize, int queries, int runs, Supplier<Integer> lookup) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            lookup.get();
+        }
+        long[] durations = new long[runs];
+        int foundNodes = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            foundNodes = lookup.get();
+            durations[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        double meanMs = Arrays.stream(durations).average().orElse(0) / 1e6;
+        double medianMs = durations[runs / 2] / 1e6;
+        System.out.printf(Locale.ROOT, "%d\t%s\t%d\t%d\t%.1f\t%.1f\t%.1f\t%.0f%n", nodeIds.size(), chunkSize, queries, foundNodes,
+                durations[0] / 1e6, medianMs, meanMs, medianMs > 0 ? nodeIds.size() / (medianMs / 1000) : 0);
+    }
+
+    /**
+     * The lookup before chunking: one query matching the AddedValue nodes whose id is in the list of every
+     * node id and added value, its result is mapped as getNodeAddedValues does.
+     */
+    private static Map<String, Map<AddedValueEnum, String>> inListLookup(Driver driver, List<String> nodeIds, Set<AddedValueEnum> addedValues) {
+        Map<String, Map<AddedValueEnum, String>> idAndAddedValuesMap = new HashMap<>();
+        List<String> addedValuesIds = nodeIds.stream()
+                .flatMap(nodeId -> addedValues.stream().map(addedValue -> nodeId + ":" + addedValue))
+                .collect(Collectors.toList());
+        try (Session session = driver.session()) {
+            Result result = session.run("MATCH (a:AddedValue) WHERE a.id IN $addedValuesIds RETURN a", Map.of("addedValuesIds", addedValuesIds));
+            while (result.hasNext()) {
+                Record record = result.next();
+                String id = record.get(0).asNode().get("id").asString();
+                idAndAddedValuesMap.computeIfAbsent(id.substring(0, id.lastIndexOf(':')), k -> new EnumMap<>(AddedValueEnum.class))
+                        .put(AddedValueEnum.valueOf(record.get(0).asNode().get("type").asString()), record.get(0).asNode().get("value").asString().replace("\\", ""));
+            }
+        }
+        return idAndAddedValuesMap;
+    }
+
+    private static List<Integer> parseIntegers(String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).map(Integer::valueOf).toList();
+    }
+
+    /**
+     * Releases with stored added values first, so the lookup returns values and not only misses.
+     */
+    private static List<String> sampleReleaseIds(String uri, String user, String password, int count) {
+        try (Driver driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password));
+             Session session = driver.session()) {
+            return session.executeRead(tx -> {
+                List<String> releaseIds = new ArrayList<>(tx.run("MATCH (r:Release)-[:addedValues]->(:AddedValue) " +
+                                "RETURN DISTINCT r.id AS id LIMIT $count", Map.of("count", count))
+                        .list(record -> record.get("id").asString()));
+                if (releaseIds.size() < count) {
+                    Set<String> knownIds = new HashSet<>(releaseIds);
+                    tx.run("MATCH (r:Release) RETURN r.id AS id LIMIT $count", Map.of("count", count))
+                            .list(record -> record.get("id").asString()).stream()
+                            .filter(knownIds::add)
+                            .limit(count - releaseIds.size())
+                            .forEach(releaseIds::add);
+                }
+                return releaseIds;
+            });
+        }
+    }
+}
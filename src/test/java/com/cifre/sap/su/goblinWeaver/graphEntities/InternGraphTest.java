@@ -0,0 +1,65 @@
+package com.cifre.sap.su.goblinWeaver.graphEntities;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.edges.DependencyEdge;
+import com.cifre.sap.su.goblinWeaver.graphEntities.edges.RelationshipArEdge;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ArtifactNode;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeObject;
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.ReleaseNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Merge of a traversal level within a node budget.
+ */
+class InternGraphTest {
+
+    /**
+     * Artifact g:a with releases 1.0 and 2.0, release 1.0 depending on artifact g:b.
+     */
+    private static InternGraph levelGraph() {
+        InternGraph graph = new InternGraph();
+        graph.addNode(new ArtifactNode("n:a", "g:a", true));
+        graph.addNode(new ReleaseNode("n:a1", "g:a:1.0", 1, "1.0"));
+        graph.addNode(new ReleaseNode("n:a2", "g:a:2.0", 2, "2.0"));
+        graph.addNode(new ArtifactNode("n:b", "g:b", true));
+        graph.addEdge(new RelationshipArEdge("n:a", "n:a1"));
+        graph.addEdge(new RelationshipArEdge("n:a", "n:a2"));
+        graph.addEdge(new DependencyEdge("n:a1", "n:b", "1.0", "compile"));
+        return graph;
+    }
+
+    private static Set<String> nodeIds(InternGraph graph) {
+        return graph.getGraphNodes().stream().map(NodeObject::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void wholeLevelIsMergedWithinBudget() {
+        InternGraph graph = new InternGraph();
+        assertFalse(graph.mergeGraph(levelGraph(), 4));
+        assertEquals(4, graph.getGraphNodes().size());
+        assertEquals(3, graph.getGraphEdges().size());
+    }
+
+    @Test
+    void nodesAreMergedByIncreasingIdUpToTheBudget() {
+        InternGraph graph = new InternGraph();
+        assertTrue(graph.mergeGraph(levelGraph(), 2));
+        assertEquals(Set.of("g:a", "g:a:1.0"), nodeIds(graph));
+        // The dependency edge to the left out artifact is not merged
+        assertEquals(Set.of(new RelationshipArEdge("n:a", "n:a1")), graph.getGraphEdges());
+    }
+
+    @Test
+    void nodesAlreadyPresentDoNotUseTheBudget() {
+        InternGraph graph = new InternGraph();
+        graph.addNode(new ArtifactNode("n:a", "g:a", true));
+        graph.addNode(new ArtifactNode("n:b", "g:b", true));
+        assertTrue(graph.mergeGraph(levelGraph(), 3));
+        assertEquals(Set.of("g:a", "g:a:1.0", "g:b"), nodeIds(graph));
+        assertEquals(Set.of(new RelationshipArEdge("n:a", "n:a1"), new DependencyEdge("n:a1", "n:b", "1.0", "compile")), graph.getGraphEdges());
+    }
+}
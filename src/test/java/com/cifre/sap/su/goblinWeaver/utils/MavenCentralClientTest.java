@@ -0,0 +1,96 @@
+package com.cifre.sap.su.goblinWeaver.utils;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MavenCentralClientTest {
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    private MavenCentralClient newClient(int maxRequestsPerSecond, int maxRetries, long retryBackoffMs) {
+        return new MavenCentralClient(server.url("/maven2").toString(), maxRequestsPerSecond, maxRetries, retryBackoffMs);
+    }
+
+    @Test
+    void retriesOn429And503() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setBody("listing"));
+        MavenCentralClient client = newClient(0, 3, 10);
+
+        assertEquals("listing", client.getAsync(client.getBaseUrl() + "org/example/").join());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void doesNotRetryOnNotFound() {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        MavenCentralClient client = newClient(0, 3, 10);
+
+        assertNull(client.getAsync(client.getBaseUrl() + "org/example/").join());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void retryAfterDelaysTheRetry() {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("listing"));
+        MavenCentralClient client = newClient(0, 3, 10);
+
+        long start = System.nanoTime();
+        assertEquals("listing", client.getAsync(client.getBaseUrl() + "org/example/").join());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        MavenCentralClient client = newClient(0, 2, 10);
+
+        assertNull(client.getAsync(client.getBaseUrl() + "org/example/").join());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void spacesRequestsToTheRateLimit() {
+        int requestCount = 6;
+        for (int i = 0; i < requestCount; i++) {
+            server.enqueue(new MockResponse().setBody("listing"));
+        }
+        MavenCentralClient client = newClient(10, 0, 10);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < requestCount; i++) {
+            responses.add(client.getAsync(client.getBaseUrl() + "org/example/" + i + "/"));
+        }
+        responses.forEach(response -> assertEquals("listing", response.join()));
+        // the first permit is immediate, each next one waits 100 ms
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100L * (requestCount - 1)));
+        assertEquals(requestCount, server.getRequestCount());
+    }
+}
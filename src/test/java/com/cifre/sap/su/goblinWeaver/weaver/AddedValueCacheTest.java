@@ -0,0 +1,148 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.nodes.NodeType;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.InternedSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caches in front of a stored values map standing for the graph, which records the nodes it is asked for.
+ */
+class AddedValueCacheTest {
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final Map<String, String> CVE = Map.of("name", "CVE-1", "severity", "HIGH", "cwe", "CWE-79");
+
+    @TempDir
+    static Path directory;
+
+    private final Map<String, Map<AddedValueEnum, String>> storedValues = new HashMap<>();
+    private final List<List<String>> lookups = new ArrayList<>();
+
+    @BeforeAll
+    static void useTemporaryDictionary() {
+        System.setProperty("internedEntriesFile", directory.resolve("internedEntries.txt").toString());
+    }
+
+    private AddedValueCache newCache(long maxBytes) {
+        return new AddedValueCache(maxBytes, (nodeIds, addedValues, nodeType) -> {
+            lookups.add(nodeIds);
+            Map<String, Map<AddedValueEnum, String>> result = new HashMap<>();
+            for (String nodeId : nodeIds) {
+                Map<AddedValueEnum, String> nodeValues = new EnumMap<>(AddedValueEnum.class);
+                storedValues.getOrDefault(nodeId, Map.of()).forEach((addedValueEnum, value) -> {
+                    if (addedValues.contains(addedValueEnum)) {
+                        nodeValues.put(addedValueEnum, value);
+                    }
+                });
+                if (!nodeValues.isEmpty()) {
+                    result.put(nodeId, nodeValues);
+                }
+            }
+            return result;
+        });
+    }
+
+    private void store(String nodeId, AddedValueEnum addedValueEnum, String value) {
+        storedValues.computeIfAbsent(nodeId, k -> new EnumMap<>(AddedValueEnum.class)).put(addedValueEnum, value);
+    }
+
+    @Test
+    void entriesAreWeightedByTheirLength() {
+        AddedValueCache cache = newCache(1024);
+        cache.put("a:b:1", AddedValueEnum.FRESHNESS, "0123456789");
+        assertEquals(2 * (5 + 10) + ENTRY_OVERHEAD, cache.getWeightedSize());
+        // Weighted once stripped of its escapes
+        cache.put("a:b:2", AddedValueEnum.FRESHNESS, "{\\\"a\\\"}");
+        assertEquals(2 * (5 + 10) + ENTRY_OVERHEAD + 2 * (5 + 5) + ENTRY_OVERHEAD, cache.getWeightedSize());
+        assertEquals("{\"a\"}", cache.getNodeAddedValues(List.of("a:b:2"), Set.of(AddedValueEnum.FRESHNESS), NodeType.RELEASE)
+                .get("a:b:2").get(AddedValueEnum.FRESHNESS));
+    }
+
+    @Test
+    void weightAboveTheMaximumIsEvicted() {
+        int entryWeight = 2 * (5 + 10) + ENTRY_OVERHEAD;
+        AddedValueCache cache = newCache(3L * entryWeight);
+        for (int i = 0; i < 10; i++) {
+            cache.put("a:b:" + i, AddedValueEnum.FRESHNESS, "0123456789");
+        }
+        assertTrue(cache.getWeightedSize() <= 3L * entryWeight);
+    }
+
+    @Test
+    void cachedValuesAreNotLookedUp() {
+        AddedValueCache cache = newCache(1024);
+        cache.put("a:b:1", AddedValueEnum.FRESHNESS, "freshness");
+        cache.put("a:b:1", AddedValueEnum.CVE, "cve");
+        // The artifact value is not asked for release nodes
+        Map<String, Map<AddedValueEnum, String>> values = cache.getNodeAddedValues(List.of("a:b:1"),
+                Set.of(AddedValueEnum.FRESHNESS, AddedValueEnum.CVE, AddedValueEnum.SPEED), NodeType.RELEASE);
+        assertEquals(Map.of("a:b:1", Map.of(AddedValueEnum.FRESHNESS, "freshness", AddedValueEnum.CVE, "cve")), values);
+        assertTrue(lookups.isEmpty());
+    }
+
+    @Test
+    void storedValuesAreCachedAfterTheirLookup() {
+        AddedValueCache cache = newCache(1024);
+        store("a:b:1", AddedValueEnum.FRESHNESS, "stored");
+        cache.put("a:b:2", AddedValueEnum.FRESHNESS, "cached");
+        Set<AddedValueEnum> addedValues = Set.of(AddedValueEnum.FRESHNESS);
+        Map<String, Map<AddedValueEnum, String>> values = cache.getNodeAddedValues(List.of("a:b:1", "a:b:2", "a:b:3"), addedValues, NodeType.RELEASE);
+        assertEquals(Map.of("a:b:1", Map.of(AddedValueEnum.FRESHNESS, "stored"), "a:b:2", Map.of(AddedValueEnum.FRESHNESS, "cached")), values);
+        assertEquals(List.of(List.of("a:b:1", "a:b:3")), lookups);
+
+        cache.getNodeAddedValues(List.of("a:b:1", "a:b:3"), addedValues, NodeType.RELEASE);
+        // Only the missing value is looked up again
+        assertEquals(List.of("a:b:3"), lookups.get(1));
+    }
+
+    @Test
+    void typeInvalidationRemovesEveryNodeValue() {
+        AddedValueCache cache = newCache(1024);
+        cache.put("a:b:1", AddedValueEnum.FRESHNESS, "freshness1");
+        cache.put("a:b:2", AddedValueEnum.FRESHNESS, "freshness2");
+        cache.put("a:b:1", AddedValueEnum.CVE, "cve1");
+        cache.invalidate(Set.of(AddedValueEnum.FRESHNESS));
+
+        Map<String, Map<AddedValueEnum, String>> values = cache.getNodeAddedValues(List.of("a:b:1", "a:b:2"),
+                Set.of(AddedValueEnum.FRESHNESS, AddedValueEnum.CVE), NodeType.RELEASE);
+        assertEquals(Map.of("a:b:1", Map.of(AddedValueEnum.CVE, "cve1")), values);
+        assertEquals(List.of(List.of("a:b:1", "a:b:2")), lookups);
+    }
+
+    @Test
+    void nodeInvalidationOnlyRemovesItsType() {
+        AddedValueCache cache = newCache(1024);
+        cache.put("a:b:1", AddedValueEnum.FRESHNESS, "freshness1");
+        cache.put("a:b:2", AddedValueEnum.FRESHNESS, "freshness2");
+        cache.put("a:b:1", AddedValueEnum.CVE, "cve1");
+        cache.invalidate(List.of("a:b:1"), AddedValueEnum.FRESHNESS);
+
+        Map<String, Map<AddedValueEnum, String>> values = cache.getNodeAddedValues(List.of("a:b:1", "a:b:2"),
+                Set.of(AddedValueEnum.FRESHNESS, AddedValueEnum.CVE), NodeType.RELEASE);
+        assertEquals(Map.of("a:b:1", Map.of(AddedValueEnum.CVE, "cve1"), "a:b:2", Map.of(AddedValueEnum.FRESHNESS, "freshness2")), values);
+        assertEquals(List.of(List.of("a:b:1", "a:b:2")), lookups);
+    }
+
+    @Test
+    void valuesOfAnotherEpochAreSkipped() {
+        AddedValueCache cache = newCache(1024);
+        String storedValue = InternedSet.of(Set.of(CVE)).serialize();
+        String bitmap = storedValue.substring(storedValue.lastIndexOf(':') + 1);
+        store("a:b:1", AddedValueEnum.CVE_AGGREGATED, storedValue);
+        store("a:b:2", AddedValueEnum.CVE_AGGREGATED, "rb1:otherEpoch:" + bitmap);
+        Set<AddedValueEnum> addedValues = Set.of(AddedValueEnum.CVE_AGGREGATED);
+
+        Map<String, Map<AddedValueEnum, String>> values = cache.getNodeAddedValues(List.of("a:b:1", "a:b:2"), addedValues, NodeType.RELEASE);
+        assertEquals(Map.of("a:b:1", Map.of(AddedValueEnum.CVE_AGGREGATED, storedValue)), values);
+        // The stale value is not cached, it stays missing until computed again
+        cache.getNodeAddedValues(List.of("a:b:1", "a:b:2"), addedValues, NodeType.RELEASE);
+        assertEquals(List.of(List.of("a:b:1", "a:b:2"), List.of("a:b:2")), lookups);
+    }
+}
@@ -0,0 +1,286 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AbstractAddedValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AggregateValue;
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.Popularity1YearAggregated;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aggregation over in-memory dependency maps, compared with the former node by node recursion.
+ */
+class AggregationEngineTest {
+
+    /**
+     * Union of the release ids reachable from a release: its aggregated value does not depend on the walk order, even with cycles.
+     */
+    private static class ReachableReleases extends AbstractAddedValue<Set<String>> implements AggregateValue<Set<String>> {
+
+        ReachableReleases(String nodeId) {
+            super(nodeId);
+        }
+
+        @Override
+        public AddedValueEnum getAddedValueEnum() {
+            return AddedValueEnum.CVE_AGGREGATED;
+        }
+
+        @Override
+        public void computeValue() {
+            value = computeMetric(nodeId);
+        }
+
+        @Override
+        public Set<String> stringToValue(String jsonString) {
+            return new HashSet<>(Arrays.asList(jsonString.split(",")));
+        }
+
+        @Override
+        public String valueToString(Set<String> value) {
+            return String.join(",", value);
+        }
+
+        @Override
+        public Set<String> mergeValue(Set<String> computedValue, Set<String> computeAggregatedValue) {
+            Set<String> merged = new HashSet<>(computedValue);
+            merged.addAll(computeAggregatedValue);
+            return merged;
+        }
+
+        @Override
+        public Set<String> computeMetric(String nodeId) {
+            return Set.of(nodeId);
+        }
+
+        @Override
+        public Set<String> getZeroValue() {
+            return Set.of();
+        }
+    }
+
+    private static Map<String, List<String>> dependencies(String... edges) {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (String edge : edges) {
+            String[] releases = edge.split("->");
+            dependencies.computeIfAbsent(releases[0], k -> new ArrayList<>());
+            if (releases.length > 1) {
+                dependencies.get(releases[0]).add(releases[1]);
+                dependencies.computeIfAbsent(releases[1], k -> new ArrayList<>());
+            }
+        }
+        return dependencies;
+    }
+
+    private static <T> Map<String, T> aggregate(AggregateValue<T> aggregateValue, Map<String, List<String>> dependencies, Map<String, T> baseValues) {
+        Map<String, T> aggregatedValues = new ConcurrentHashMap<>();
+        AggregationEngine.aggregate(aggregateValue, dependencies, baseValues, aggregatedValues);
+        return aggregatedValues;
+    }
+
+    /**
+     * The recursion used before the engine, without stored values: a release already being visited counts as zero.
+     */
+    private static <T> T aggregateRecursively(AggregateValue<T> aggregateValue, String release, Map<String, List<String>> dependencies,
+                                              Map<String, T> baseValues, Set<String> visiting) {
+        if (visiting.contains(release)) {
+            return aggregateValue.getZeroValue();
+        }
+        visiting.add(release);
+        T value = baseValues.getOrDefault(release, aggregateValue.getZeroValue());
+        for (String dependency : dependencies.get(release)) {
+            value = aggregateValue.mergeValue(value, aggregateRecursively(aggregateValue, dependency, dependencies, baseValues, visiting));
+        }
+        visiting.remove(release);
+        return value;
+    }
+
+    private static Map<String, Integer> popularities(Map<String, List<String>> dependencies) {
+        Map<String, Integer> popularities = new HashMap<>();
+        int popularity = 1;
+        for (String release : dependencies.keySet()) {
+            popularities.put(release, popularity);
+            popularity *= 2;
+        }
+        return popularities;
+    }
+
+    private static Map<String, Set<String>> releaseSets(Map<String, List<String>> dependencies) {
+        Map<String, Set<String>> releaseSets = new HashMap<>();
+        for (String release : dependencies.keySet()) {
+            releaseSets.put(release, Set.of(release));
+        }
+        return releaseSets;
+    }
+
+    private static <T> void assertMatchesRecursion(AggregateValue<T> aggregateValue, Map<String, List<String>> dependencies, Map<String, T> baseValues) {
+        Map<String, T> aggregatedValues = aggregate(aggregateValue, dependencies, baseValues);
+        assertEquals(dependencies.keySet(), aggregatedValues.keySet());
+        for (String release : dependencies.keySet()) {
+            assertEquals(aggregateRecursively(aggregateValue, release, dependencies, baseValues, new HashSet<>()), aggregatedValues.get(release), release);
+        }
+    }
+
+    private static void assertDependenciesFirst(Map<String, List<String>> dependencies) {
+        List<String> releases = new ArrayList<>(dependencies.keySet());
+        List<int[]> components = AggregationEngine.getComponentsBottomUp(releases, dependencies);
+        Map<String, Integer> releaseComponents = new HashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            for (int release : components.get(i)) {
+                assertNull(releaseComponents.put(releases.get(release), i), "release in two components");
+            }
+        }
+        assertEquals(releases.size(), releaseComponents.size());
+        for (String release : releases) {
+            for (String dependency : dependencies.get(release)) {
+                assertTrue(releaseComponents.get(dependency) <= releaseComponents.get(release), release + " emitted before " + dependency);
+            }
+        }
+    }
+
+    @Test
+    void chain() {
+        Map<String, List<String>> dependencies = dependencies("a->b", "b->c", "c->d");
+
+        assertMatchesRecursion(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies));
+        assertEquals(Map.of("a", 15, "b", 14, "c", 12, "d", 8), aggregate(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies)));
+        assertDependenciesFirst(dependencies);
+    }
+
+    @Test
+    void diamond() {
+        Map<String, List<String>> dependencies = dependencies("a->b", "a->c", "b->d", "c->d", "d->e");
+
+        assertMatchesRecursion(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies));
+        assertMatchesRecursion(new ReachableReleases("a"), dependencies, releaseSets(dependencies));
+        // The shared subtree is merged once per path, as the recursion did
+        assertEquals(1 + 2 + 4 + 2 * (8 + 16), aggregate(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies)).get("a"));
+        assertDependenciesFirst(dependencies);
+    }
+
+    @Test
+    void selfLoop() {
+        Map<String, List<String>> dependencies = dependencies("a->a", "a->b");
+
+        assertMatchesRecursion(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies));
+        assertEquals(Map.of("a", 3, "b", 2), aggregate(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies)));
+        assertDependenciesFirst(dependencies);
+    }
+
+    @Test
+    void cycle() {
+        Map<String, List<String>> dependencies = dependencies("x->a", "a->b", "b->c", "c->a", "c->d");
+
+        Map<String, Integer> popularities = aggregate(new Popularity1YearAggregated("x"), dependencies, popularities(dependencies));
+        assertEquals(popularities.get("a"), popularities.get("b"));
+        assertEquals(popularities.get("a"), popularities.get("c"));
+        assertEquals(2 + 4 + 8 + 16, popularities.get("a"));
+        assertEquals(1 + 2 + 4 + 8 + 16, popularities.get("x"));
+        assertMatchesRecursion(new ReachableReleases("x"), dependencies, releaseSets(dependencies));
+        Map<String, Set<String>> reachableReleases = aggregate(new ReachableReleases("x"), dependencies, releaseSets(dependencies));
+        assertEquals(Set.of("a", "b", "c", "d"), reachableReleases.get("b"));
+        assertDependenciesFirst(dependencies);
+    }
+
+    @Test
+    void dependenciesOutOfTheReleasesUseTheirKnownValue() {
+        Map<String, List<String>> dependencies = dependencies("a->b");
+        dependencies.get("b").add("stored");
+        Map<String, Integer> aggregatedValues = new ConcurrentHashMap<>(Map.of("stored", 100));
+
+        AggregationEngine.aggregate(new Popularity1YearAggregated("a"), dependencies, popularities(dependencies), aggregatedValues);
+
+        assertEquals(103, aggregatedValues.get("a"));
+        assertEquals(102, aggregatedValues.get("b"));
+    }
+
+    @Test
+    void randomGraphsMatchTheRecursion() {
+        Random random = new Random(42);
+        // Small graphs: the recursion walks every path
+        for (int graph = 0; graph < 200; graph++) {
+            Map<String, List<String>> dependencies = new LinkedHashMap<>();
+            int releaseCount = 2 + random.nextInt(10);
+            for (int release = 0; release < releaseCount; release++) {
+                List<String> releaseDependencies = new ArrayList<>();
+                for (int edge = random.nextInt(3); edge > 0; edge--) {
+                    releaseDependencies.add("r" + random.nextInt(releaseCount));
+                }
+                dependencies.put("r" + release, releaseDependencies);
+            }
+
+            assertMatchesRecursion(new ReachableReleases("r0"), dependencies, releaseSets(dependencies));
+            assertDependenciesFirst(dependencies);
+        }
+    }
+
+    @Test
+    void wideLevelIsAggregatedInParallel() {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        List<String> leaves = new ArrayList<>();
+        for (int leaf = 0; leaf < 500; leaf++) {
+            leaves.add("leaf" + leaf);
+            dependencies.put("leaf" + leaf, List.of());
+        }
+        dependencies.put("root", leaves);
+
+        Map<String, Integer> aggregatedValues = aggregate(new Popularity1YearAggregated("root"), dependencies,
+                Map.of("root", 1));
+
+        assertEquals(1, aggregatedValues.get("root"));
+        Map<String, Integer> baseValues = new HashMap<>();
+        dependencies.keySet().forEach(release -> baseValues.put(release, 1));
+        assertEquals(501, aggregate(new Popularity1YearAggregated("root"), dependencies, baseValues).get("root"));
+    }
+
+    @Test
+    void intermediateReleaseInFlightElsewhereIsAwaited() throws Exception {
+        Map<String, List<String>> dependencies = dependencies("a->b", "b->c");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Set<String>> otherWeaving = CompletableFuture.supplyAsync(() ->
+                SingleFlight.execute("b", AddedValueEnum.CVE_AGGREGATED, () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Set.of("fromOtherWeaving");
+                }));
+        started.await();
+
+        Map<String, Set<String>> aggregatedValues = new ConcurrentHashMap<>();
+        CompletableFuture<Void> weaving = CompletableFuture.runAsync(() -> AggregationEngine.aggregate(new ReachableReleases("a"),
+                dependencies, releaseSets(dependencies), aggregatedValues, AddedValueEnum.CVE_AGGREGATED));
+        Thread.sleep(100);
+        assertFalse(weaving.isDone());
+        release.countDown();
+        weaving.join();
+        otherWeaving.join();
+
+        assertEquals(Set.of("c"), aggregatedValues.get("c"));
+        assertEquals(Set.of("fromOtherWeaving"), aggregatedValues.get("b"));
+        assertEquals(Set.of("a", "fromOtherWeaving"), aggregatedValues.get("a"));
+    }
+
+    @Test
+    void sharedAggregationMatchesLocalAggregation() {
+        Map<String, List<String>> dependencies = dependencies("x->a", "a->b", "b->c", "c->a", "c->d", "x->d");
+        Map<String, Set<String>> aggregatedValues = new ConcurrentHashMap<>();
+
+        // The roots are owned by the calling thread, as when the Weaver runs the engine as a batch calculator
+        SingleFlight.executeAll(List.of("x"), AddedValueEnum.CVE_AGGREGATED, roots -> {
+            AggregationEngine.aggregate(new ReachableReleases("x"), dependencies, releaseSets(dependencies), aggregatedValues, AddedValueEnum.CVE_AGGREGATED);
+            return Map.of("x", aggregatedValues.get("x"));
+        });
+
+        assertEquals(aggregate(new ReachableReleases("x"), dependencies, releaseSets(dependencies)), aggregatedValues);
+    }
+}
@@ -0,0 +1,191 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.AddedValueEnum;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Computations shared between threads. The registry is global, so every test uses its own node ids.
+ */
+class SingleFlightTest {
+    private static final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void addRegistry() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterAll
+    static void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    private static double outcomeCount(String outcome) {
+        return registry.counter("weaver.singleflight", "outcome", outcome).count();
+    }
+
+    /**
+     * Runs the supplier in a new thread, the result is completed when it returns.
+     */
+    private static <T> CompletableFuture<T> startThread(Supplier<T> supplier, List<Thread> threads) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        threads.add(thread);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Waits until the thread is parked, waiting for a flight or a latch.
+     */
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void computationInFlightIsShared() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        CompletableFuture<String> owner = startThread(() -> SingleFlight.execute("shared", AddedValueEnum.CVE_AGGREGATED, () -> {
+            computations.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "value";
+        }), threads);
+        started.await();
+        double sharedBefore = outcomeCount("shared");
+        CompletableFuture<String> waiter = startThread(() -> SingleFlight.execute("shared", AddedValueEnum.CVE_AGGREGATED, () -> {
+            computations.incrementAndGet();
+            return "otherValue";
+        }), threads);
+        awaitParked(threads.get(1));
+        release.countDown();
+
+        assertEquals("value", owner.join());
+        assertEquals("value", waiter.join());
+        assertEquals(1, computations.get());
+        assertEquals(1, outcomeCount("shared") - sharedBefore);
+    }
+
+    @Test
+    void ownerFailureIsThrownToItsCallerAndWaiterComputesItself() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        CompletableFuture<String> owner = startThread(() -> SingleFlight.execute("failing", AddedValueEnum.CVE_AGGREGATED, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("owner failed");
+        }), threads);
+        started.await();
+        CompletableFuture<String> waiter = startThread(() -> SingleFlight.execute("failing", AddedValueEnum.CVE_AGGREGATED, () -> "waiterValue"), threads);
+        awaitParked(threads.get(1));
+        release.countDown();
+
+        Exception exception = assertThrows(Exception.class, owner::join);
+        assertEquals("owner failed", exception.getCause().getMessage());
+        assertEquals("waiterValue", waiter.join());
+        // The failed flight is not kept
+        assertEquals("newValue", SingleFlight.execute("failing", AddedValueEnum.CVE_AGGREGATED, () -> "newValue"));
+    }
+
+    @Test
+    void waitClosingACycleComputesInstead() throws Exception {
+        CountDownLatch ownsFirst = new CountDownLatch(1);
+        CountDownLatch ownsSecond = new CountDownLatch(1);
+        AtomicBoolean firstAsksSecond = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        double cycleBefore = outcomeCount("cycle");
+        // The first thread owns "cycleA" and waits for "cycleB", the second one owns "cycleB" then asks for "cycleA"
+        CompletableFuture<String> first = startThread(() -> SingleFlight.execute("cycleA", AddedValueEnum.CVE_AGGREGATED, () -> {
+            ownsFirst.countDown();
+            await(ownsSecond);
+            firstAsksSecond.set(true);
+            return "A(" + SingleFlight.execute("cycleB", AddedValueEnum.CVE_AGGREGATED, () -> "B by first") + ")";
+        }), threads);
+        ownsFirst.await();
+        CompletableFuture<String> second = startThread(() -> SingleFlight.execute("cycleB", AddedValueEnum.CVE_AGGREGATED, () -> {
+            ownsSecond.countDown();
+            try {
+                // Past the latch, the first thread can only park waiting for "cycleB"
+                while (!firstAsksSecond.get()) {
+                    Thread.sleep(5);
+                }
+                awaitParked(threads.get(0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "B(" + SingleFlight.execute("cycleA", AddedValueEnum.CVE_AGGREGATED, () -> "A by second") + ")";
+        }), threads);
+
+        assertEquals("B(A by second)", second.join());
+        assertEquals("A(B(A by second))", first.join());
+        assertEquals(1, outcomeCount("cycle") - cycleBefore);
+    }
+
+    @Test
+    void ownedKeyIsComputedAgainWithoutWaiting() {
+        String value = SingleFlight.execute("reentrant", AddedValueEnum.CVE_AGGREGATED,
+                () -> "outer(" + SingleFlight.execute("reentrant", AddedValueEnum.CVE_AGGREGATED, () -> "inner") + ")");
+        assertEquals("outer(inner)", value);
+    }
+
+    @Test
+    void batchComputesFreeKeysTogetherAndAwaitsTheOthers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        CompletableFuture<String> owner = startThread(() -> SingleFlight.execute("batchB", AddedValueEnum.CVE_AGGREGATED, () -> {
+            started.countDown();
+            await(release);
+            return "B from owner";
+        }), threads);
+        started.await();
+        List<List<String>> computedBatches = new CopyOnWriteArrayList<>();
+        CompletableFuture<Map<String, String>> batch = startThread(() -> SingleFlight.executeAll(List.of("batchA", "batchB", "batchC"), AddedValueEnum.CVE_AGGREGATED,
+                nodeIds -> {
+                    computedBatches.add(nodeIds);
+                    return nodeIds.stream().collect(Collectors.toMap(nodeId -> nodeId, nodeId -> nodeId + " from batch"));
+                }), threads);
+        awaitParked(threads.get(1));
+        release.countDown();
+
+        assertEquals(Map.of("batchA", "batchA from batch", "batchB", "B from owner", "batchC", "batchC from batch"), batch.join());
+        assertEquals(List.of(List.of("batchA", "batchC")), computedBatches);
+        owner.join();
+    }
+}
@@ -0,0 +1,108 @@
+package com.cifre.sap.su.goblinWeaver.weaver;
+
+import com.cifre.sap.su.goblinWeaver.graphEntities.InternGraph;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Jobs weave graphs without added values, so no database is needed.
+ */
+class WeavingJobManagerTest {
+
+    /**
+     * Graph whose result is only produced once released, keeping its job running.
+     */
+    private static class BlockingGraph extends InternGraph {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public JSONObject getJsonGraph() {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getJsonGraph();
+        }
+    }
+
+    private static void awaitFinished(WeavingJob job) throws InterruptedException {
+        while (!job.isFinished()) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        WeavingJobManager jobManager = new WeavingJobManager(1, 1, 3600000L, 100, 42L);
+        BlockingGraph runningGraph = new BlockingGraph();
+        WeavingJob running = jobManager.submit(runningGraph, Set.of());
+        runningGraph.started.await();
+        WeavingJob queued = jobManager.submit(new InternGraph(), Set.of());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> jobManager.submit(new InternGraph(), Set.of()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals("42", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        runningGraph.release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+        assertEquals(WeavingJob.Status.DONE, queued.getStatus());
+        // The queue has room again
+        awaitFinished(jobManager.submit(new InternGraph(), Set.of()));
+    }
+
+    @Test
+    void finishedJobsAreEvictedAfterRetention() throws Exception {
+        WeavingJobManager jobManager = new WeavingJobManager(1, 10, 0L, 100, 30L);
+        BlockingGraph runningGraph = new BlockingGraph();
+        WeavingJob running = jobManager.submit(runningGraph, Set.of());
+        runningGraph.started.await();
+        WeavingJob queued = jobManager.submit(new InternGraph(), Set.of());
+        Thread.sleep(5);
+
+        // Jobs not finished are kept whatever their age
+        assertSame(running, jobManager.getJob(running.getId()));
+        assertSame(queued, jobManager.getJob(queued.getId()));
+        runningGraph.release.countDown();
+        awaitFinished(queued);
+        Thread.sleep(5);
+
+        assertNull(jobManager.getJob(running.getId()));
+        assertNull(jobManager.getJob(queued.getId()));
+    }
+
+    @Test
+    void oldestFinishedJobsAreEvictedAboveMaxRetained() throws Exception {
+        WeavingJobManager jobManager = new WeavingJobManager(1, 10, 3600000L, 2, 30L);
+        WeavingJob first = jobManager.submit(new InternGraph(), Set.of());
+        awaitFinished(first);
+        WeavingJob second = jobManager.submit(new InternGraph(), Set.of());
+        awaitFinished(second);
+        BlockingGraph runningGraph = new BlockingGraph();
+        WeavingJob running = jobManager.submit(runningGraph, Set.of());
+        runningGraph.started.await();
+        WeavingJob queued = jobManager.submit(new InternGraph(), Set.of());
+
+        // Four jobs but only two finished ones
+        assertSame(first, jobManager.getJob(first.getId()));
+        assertSame(second, jobManager.getJob(second.getId()));
+        runningGraph.release.countDown();
+        awaitFinished(queued);
+
+        assertNull(jobManager.getJob(first.getId()));
+        assertNull(jobManager.getJob(second.getId()));
+        assertSame(running, jobManager.getJob(running.getId()));
+        assertSame(queued, jobManager.getJob(queued.getId()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dictionaries read and written on a temporary file, without the shared instance.
+ */
+class InternedEntriesTest {
+    private static final Map<String, String> FIRST_CVE = Map.of("name", "CVE-1", "severity", "HIGH", "cwe", "CWE-79");
+    private static final Map<String, String> SECOND_CVE = Map.of("name", "CVE-2", "severity", "LOW", "cwe", "CWE-20");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void equalEntriesShareTheirId() {
+        InternedEntries entries = new InternedEntries(directory.resolve("internedEntries.txt"));
+        int firstId = entries.getId(FIRST_CVE);
+        int secondId = entries.getId(SECOND_CVE);
+        assertNotEquals(firstId, secondId);
+        assertEquals(firstId, entries.getId(Map.of("cwe", "CWE-79", "severity", "HIGH", "name", "CVE-1")));
+        assertEquals(FIRST_CVE, entries.getEntry(firstId));
+        assertEquals(secondId, entries.findId(SECOND_CVE));
+        assertEquals(-1, entries.findId(Map.of("name", "CVE-3")));
+        assertEquals(-1, entries.findId(null));
+    }
+
+    @Test
+    void newEntriesAreWrittenAtCheckpoint() throws IOException {
+        Path file = directory.resolve("internedEntries.txt");
+        InternedEntries entries = new InternedEntries(file);
+        entries.getId(FIRST_CVE);
+        assertEquals(1, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        entries.checkpoint();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(List.of(entries.getEpoch()), lines.subList(0, 1));
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    void reloadedDictionaryKeepsEpochAndIds() {
+        Path file = directory.resolve("internedEntries.txt");
+        InternedEntries entries = new InternedEntries(file);
+        int firstId = entries.getId(FIRST_CVE);
+        int secondId = entries.getId(SECOND_CVE);
+        entries.checkpoint();
+
+        InternedEntries reloadedEntries = new InternedEntries(file);
+        assertEquals(entries.getEpoch(), reloadedEntries.getEpoch());
+        assertEquals(firstId, reloadedEntries.findId(FIRST_CVE));
+        assertEquals(SECOND_CVE, reloadedEntries.getEntry(secondId));
+        // Appended after the reloaded entries
+        int thirdId = reloadedEntries.getId(Map.of("name", "CVE-3"));
+        assertEquals(2, thirdId);
+        reloadedEntries.checkpoint();
+        assertEquals(thirdId, new InternedEntries(file).findId(Map.of("name", "CVE-3")));
+    }
+
+    @Test
+    void unreadableFileStartsNewEpoch() throws IOException {
+        Path file = directory.resolve("internedEntries.txt");
+        Files.writeString(file, "oldEpoch\nnot json\n", StandardCharsets.UTF_8);
+        InternedEntries entries = new InternedEntries(file);
+        assertNotEquals("oldEpoch", entries.getEpoch());
+        assertEquals(-1, entries.findId(FIRST_CVE));
+        assertEquals(0, entries.getId(FIRST_CVE));
+    }
+}
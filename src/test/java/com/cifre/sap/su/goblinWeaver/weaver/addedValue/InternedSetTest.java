@@ -0,0 +1,65 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The shared dictionary is a singleton: its file must be set before its first use.
+ */
+class InternedSetTest {
+    private static final Map<String, String> FIRST_CVE = Map.of("name", "CVE-1", "severity", "HIGH", "cwe", "CWE-79");
+    private static final Map<String, String> SECOND_CVE = Map.of("name", "CVE-2", "severity", "LOW", "cwe", "CWE-20");
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void useTemporaryDictionary() {
+        System.setProperty("internedEntriesFile", directory.resolve("internedEntries.txt").toString());
+    }
+
+    @Test
+    void serializedSetIsReadBack() {
+        String storedValue = InternedSet.of(Set.of(FIRST_CVE, SECOND_CVE)).serialize();
+        assertTrue(InternedSet.isInterned(storedValue));
+        assertFalse(InternedSet.isStale(storedValue));
+        assertEquals(Set.of(FIRST_CVE, SECOND_CVE), InternedSet.deserialize(storedValue));
+        assertTrue(InternedSet.deserialize(storedValue).contains(FIRST_CVE));
+    }
+
+    @Test
+    void unionMergesBothSets() {
+        InternedSet union = InternedSet.union(Set.of(FIRST_CVE), InternedSet.of(Set.of(SECOND_CVE)));
+        assertEquals(2, union.size());
+        assertEquals(Set.of(FIRST_CVE, SECOND_CVE), union);
+    }
+
+    @Test
+    void valueOfAnotherEpochIsStale() {
+        String storedValue = InternedSet.of(Set.of(FIRST_CVE)).serialize();
+        String bitmap = storedValue.substring(storedValue.lastIndexOf(':') + 1);
+        assertTrue(InternedSet.isStale("rb1:otherEpoch:" + bitmap));
+        assertFalse(InternedSet.isStale("{\"cve_aggregated\":[]}"));
+    }
+
+    @Test
+    void legacyJsonValueIsStillRead() {
+        CveAggregated cveAggregated = new CveAggregated("org.example:lib:1.0");
+        String legacyValue = "{\"cve_aggregated\":[{\"name\":\"CVE-1\",\"severity\":\"HIGH\",\"cwe\":\"CWE-79\"}," +
+                "{\"name\":\"CVE-2\",\"severity\":\"LOW\",\"cwe\":\"CWE-20\"}]}";
+        assertFalse(InternedSet.isInterned(legacyValue));
+        Set<Map<String, String>> value = cveAggregated.stringToValue(legacyValue);
+        assertEquals(Set.of(FIRST_CVE, SECOND_CVE), value);
+        // Saved again as a bitmap
+        String storedValue = cveAggregated.valueToString(value);
+        assertTrue(InternedSet.isInterned(storedValue));
+        assertEquals(value, cveAggregated.stringToValue(storedValue));
+    }
+}
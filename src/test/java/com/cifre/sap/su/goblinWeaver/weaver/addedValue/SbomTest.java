@@ -0,0 +1,79 @@
+package com.cifre.sap.su.goblinWeaver.weaver.addedValue;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The shared client and file listing source are singletons: the repository URL must be set before their first use.
+ */
+class SbomTest {
+    private static final String LISTING = """
+            <html><body>
+            <a href="../">../</a>
+            <a href="lib-1.0.jar">lib-1.0.jar</a>
+            <a href="lib-1.0-cyclonedx.json">lib-1.0-cyclonedx.json</a>
+            <a href="lib-1.0-cyclonedx.json.asc">lib-1.0-cyclonedx.json.asc</a>
+            <a href="lib-1.0-cyclonedx.json.sha1">lib-1.0-cyclonedx.json.sha1</a>
+            <a href="lib-1.0-cyclonedx.json.md5">lib-1.0-cyclonedx.json.md5</a>
+            <a href="lib-1.0-spdx.xml">lib-1.0-spdx.xml</a>
+            </body></html>
+            """;
+    private static MockWebServer server;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                if ("/maven2/org/example/lib/1.0/".equals(request.getPath())) {
+                    return new MockResponse().setBody(LISTING);
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+        System.setProperty("mavenCentralUrl", server.url("/maven2/").toString());
+        System.setProperty("httpMaxRetries", "0");
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void computeAllParsesTheDirectoryListing() {
+        String folderUrl = server.url("/maven2/org/example/lib/1.0/").toString();
+
+        Map<String, Set<Map<String, String>>> sbomByRelease = Sbom.computeAll(List.of("org.example:lib:1.0", "org.example:missing:2.0", "notAGav"));
+
+        assertEquals(3, sbomByRelease.size());
+        Map<String, String> sbomLinks = sbomByRelease.get("org.example:lib:1.0").iterator().next();
+        assertEquals(Set.of(folderUrl + "lib-1.0-cyclonedx.json", folderUrl + "lib-1.0-spdx.xml"), sbomLinks.keySet());
+        String cycloneDx = sbomLinks.get(folderUrl + "lib-1.0-cyclonedx.json");
+        assertTrue(cycloneDx.contains("standard=cyclonedx"));
+        assertTrue(cycloneDx.contains("isSigned=true"));
+        assertTrue(cycloneDx.contains("isHashAvailable=md5, sha1"));
+        String spdx = sbomLinks.get(folderUrl + "lib-1.0-spdx.xml");
+        assertTrue(spdx.contains("standard=spdx"));
+        assertTrue(spdx.contains("isSigned=false"));
+        assertTrue(spdx.contains("isHashAvailable=none"));
+        assertEquals(Set.of(Map.of()), sbomByRelease.get("org.example:missing:2.0"));
+        assertTrue(sbomByRelease.get("notAGav").isEmpty());
+    }
+}
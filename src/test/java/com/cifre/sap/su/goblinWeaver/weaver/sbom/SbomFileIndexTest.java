@@ -0,0 +1,89 @@
+package com.cifre.sap.su.goblinWeaver.weaver.sbom;
+
+import com.cifre.sap.su.goblinWeaver.weaver.addedValue.Sbom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexes built from repository listings by {@link SbomFileIndexBuilder} and read back by {@link SbomFileIndex}.
+ */
+class SbomFileIndexTest {
+    private static final String LISTING = """
+            ./org/example/lib/1.0/lib-1.0.jar
+            ./org/example/lib/1.0/lib-1.0-cyclonedx.json 2048 2024-01-01
+            maven2/org/example/lib/1.0/lib-1.0-spdx.xml
+            org/example/lib/2.0/lib-2.0.jar
+            com/other/tool/3.1/tool-3.1-cyclonedx.xml
+            tool-cyclonedx.json
+            """;
+
+    @TempDir
+    Path directory;
+
+    private SbomFileIndex writeAndLoad(SbomFileIndexBuilder builder) throws IOException {
+        Path indexPath = directory.resolve("sbomFiles.idx");
+        builder.write(indexPath);
+        return SbomFileIndex.load(indexPath);
+    }
+
+    private static SbomFileIndexBuilder builderOf(String listing) {
+        SbomFileIndexBuilder builder = new SbomFileIndexBuilder(Sbom::isSbomRelatedFile);
+        listing.lines().forEach(builder::addPath);
+        return builder;
+    }
+
+    @Test
+    void pathsAreNormalisedAndFiltered() throws IOException {
+        SbomFileIndex index = writeAndLoad(builderOf(LISTING));
+        assertEquals(List.of("lib-1.0-cyclonedx.json", "lib-1.0-spdx.xml"), index.getFiles("org.example:lib:1.0"));
+        assertEquals(List.of("tool-3.1-cyclonedx.xml"), index.getFiles("com.other:tool:3.1"));
+    }
+
+    @Test
+    void releasesWithoutSbomAreMissing() throws IOException {
+        SbomFileIndex index = writeAndLoad(builderOf(LISTING));
+        assertTrue(index.getFiles("org.example:lib:2.0").isEmpty());
+        assertTrue(index.getFiles("org.example:missing:1.0").isEmpty());
+        assertTrue(index.getFiles("org.example", "lib", "2.0").join().isEmpty());
+        assertEquals(List.of("tool-3.1-cyclonedx.xml"), index.getFiles("com.other", "tool", "3.1").join());
+    }
+
+    @Test
+    void gzippedListingIsRead() throws IOException {
+        Path listingPath = directory.resolve("listing.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(listingPath))) {
+            out.write(LISTING.getBytes(StandardCharsets.UTF_8));
+        }
+        SbomFileIndexBuilder builder = new SbomFileIndexBuilder(Sbom::isSbomRelatedFile);
+        builder.addListing(listingPath);
+        SbomFileIndex index = writeAndLoad(builder);
+        assertEquals(List.of("lib-1.0-cyclonedx.json", "lib-1.0-spdx.xml"), index.getFiles("org.example:lib:1.0"));
+    }
+
+    @Test
+    void emptyIndexHasNoRelease() throws IOException {
+        SbomFileIndex index = writeAndLoad(builderOf(""));
+        assertTrue(index.getFiles("org.example:lib:1.0").isEmpty());
+    }
+
+    @Test
+    void otherFileIsRejected() throws IOException {
+        Path indexPath = directory.resolve("sbomFiles.idx");
+        builderOf(LISTING).write(indexPath);
+        try (RandomAccessFile file = new RandomAccessFile(indexPath.toFile(), "rw")) {
+            file.writeInt(0x12345678);
+        }
+        assertThrows(IOException.class, () -> SbomFileIndex.load(indexPath));
+    }
+}